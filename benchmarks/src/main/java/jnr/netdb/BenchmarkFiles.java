@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates large services files for the benchmarks
+ */
+final class BenchmarkFiles {
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Writes a services file in the style of a generated /etc/services.
+     *
+     * Every entry has a unique name of the form {@code svc-N}, an alias {@code alias-N}
+     * and a tcp and a udp line.  Every tenth line is a comment.
+     */
+    static File generateServicesFile(int entries) throws IOException {
+        File f = File.createTempFile("services", ".bench");
+        f.deleteOnExit();
+
+        Writer w = new BufferedWriter(new FileWriter(f));
+        try {
+            w.write("# Generated services file for jnr-netdb benchmarks\n");
+            for (int i = 0; i < entries; i++) {
+                if (i % 10 == 0) {
+                    w.write("# Block " + i + "\n");
+                }
+                int port = i % 65536;
+                w.write("svc-" + i + "\t\t" + port + "/tcp\t\talias-" + i + "\t# generated entry " + i + "\n");
+                w.write("svc-" + i + "\t\t" + port + "/udp\t\talias-" + i + "\n");
+            }
+        } finally {
+            w.close();
+        }
+
+        return f;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of concurrent lookups on one shared {@link ServicesDB} / {@link ProtocolsDB}
+ * as the number of threads grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContendedLookupBenchmark {
+
+    @Param({ "native-linux", "file" })
+    public String backend;
+
+    private ServicesDB servicesDB;
+    private ProtocolsDB protocolsDB;
+
+    @Setup
+    public void setUp() {
+        servicesDB = ServicesDBBenchmark.createServicesDB(backend);
+        protocolsDB = ProtocolsDBBenchmark.createProtocolsDB(backend);
+    }
+
+    private Object lookup() {
+        servicesDB.getServiceByName("domain", "udp");
+        return protocolsDB.getProtocolByNumber(6);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object threads4() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object threads16() {
+        return lookup();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object threads64() {
+        return lookup();
+    }
+}
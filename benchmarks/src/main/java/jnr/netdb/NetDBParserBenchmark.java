@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the byte level {@link NetDBTokenizer}, reading from a stream and from
+ * a whole file read at once, with the regex based line splitting that {@link NetDBIterator}
+ * used to do, and the sequential and parallel (fork/join) index builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetDBParserBenchmark {
+
+    @Param({ "10000", "200000" })
+    public int entries;
+
+    private File servicesFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        servicesFile = BenchmarkFiles.generateServicesFile(entries);
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole bh) throws IOException {
+        NetDBParser parser = new NetDBParser(new FileInputStream(servicesFile));
+        try {
+            for (NetDBEntry e : parser) {
+                bh.consume(e);
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public void bufferedTokenizer(Blackhole bh) throws IOException {
+        NetDBParser parser = NetDBParser.open(servicesFile);
+        try {
+            for (NetDBEntry e : parser) {
+                bh.consume(e);
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public ServicesDB buildFileServicesIndex() {
+        return new FileServicesDB(servicesFile);
+    }
+
+    @Benchmark
+    public ServicesDB buildFileServicesIndexSequential() {
+        return ServicesSnapshot.load(servicesFile, null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public ServicesDB buildFileServicesIndexParallel() {
+        return ServicesSnapshot.load(servicesFile, null, 256 * 1024);
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole bh) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(servicesFile));
+        try {
+            NetDBEntry e;
+            while ((e = readNextEntryWithRegex(reader)) != null) {
+                bh.consume(e);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * The line splitting previously done by {@code NetDBIterator.readNextEntry()}
+     */
+    private static NetDBEntry readNextEntryWithRegex(BufferedReader reader) throws IOException {
+        String s;
+
+        while ((s = reader.readLine()) != null) {
+
+            String[] line = s.split("#", 2);
+            if (line.length < 1 || line[0].length() == 0) {
+                continue;
+            }
+
+            String[] fields = line[0].trim().split("\\s+");
+            if (fields.length < 2 || fields[0] == null || fields[1] == null) {
+                continue;
+            }
+
+            List<String> aliases;
+            if (fields.length > 2) {
+                aliases = new ArrayList<String>(fields.length - 2);
+                for (int i = 2; i < fields.length; ++i) {
+                    if (fields[i] != null) {
+                        aliases.add(fields[i]);
+                    }
+                }
+            } else {
+                aliases = Collections.emptyList();
+            }
+
+            return new NetDBEntry(fields[0], fields[1], aliases);
+        }
+
+        return null;
+    }
+}
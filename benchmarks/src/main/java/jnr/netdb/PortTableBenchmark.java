@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the boxed {@code HashMap<Integer, Service>} that {@link IANAServicesDB}
+ * used to index ports with, against {@link PortTable}.
+ *
+ * The build benchmarks index the tcp services of the built-in table; their
+ * gc.alloc.rate.norm is an upper bound on the heap each structure retains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortTableBenchmark {
+
+    public int hitPort = 53;
+    public int missPort = 4;
+
+    private List<Service> services;
+    private Map<Integer, Service> hashMap;
+    private PortTable portTable;
+
+    @Setup
+    public void setUp() {
+        services = IANAServicesDB.getInstance().getAllServices();
+        hashMap = buildHashMap();
+        portTable = buildPortTable();
+    }
+
+    @Benchmark
+    public Map<Integer, Service> buildHashMap() {
+        Map<Integer, Service> map = new HashMap<Integer, Service>();
+        for (Service s : services) {
+            if ("tcp".equals(s.proto)) {
+                map.put(s.getPort(), s);
+            }
+        }
+
+        return map;
+    }
+
+    @Benchmark
+    public PortTable buildPortTable() {
+        PortTable table = new PortTable();
+        for (Service s : services) {
+            if ("tcp".equals(s.proto)) {
+                table.put(s.getPort(), s);
+            }
+        }
+
+        return table;
+    }
+
+    @Benchmark
+    public Service hashMapHit() {
+        return hashMap.get(hitPort);
+    }
+
+    @Benchmark
+    public Service hashMapMiss() {
+        return hashMap.get(missPort);
+    }
+
+    @Benchmark
+    public Service portTableHit() {
+        return portTable.get(hitPort);
+    }
+
+    @Benchmark
+    public Service portTableMiss() {
+        return portTable.get(missPort);
+    }
+}
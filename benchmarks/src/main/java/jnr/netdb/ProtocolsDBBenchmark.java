@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import jnr.ffi.Library;
+import jnr.ffi.Platform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup latency of each {@link ProtocolsDB} backend that {@code Protocol} can select.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolsDBBenchmark {
+
+    @Param({ "native-linux", "native-default", "file", "iana" })
+    public String backend;
+
+    public String hitName = "tcp";
+    public int hitNumber = 6;
+    public String missName = "no-such-protocol";
+    public int missNumber = 253;
+
+    private ProtocolsDB db;
+
+    @Setup
+    public void setUp() {
+        db = createProtocolsDB(backend);
+        if (db.getProtocolByName(hitName) == null || db.getProtocolByNumber(hitNumber) == null) {
+            throw new IllegalStateException(backend + " cannot find " + hitName);
+        }
+    }
+
+    static ProtocolsDB createProtocolsDB(String backend) {
+        if ("native-linux".equals(backend)) {
+            if (!Platform.getNativePlatform().getOS().equals(Platform.OS.LINUX)) {
+                throw new UnsupportedOperationException("the reentrant getproto*_r functions are only used on Linux");
+            }
+            return new NativeProtocolsDB.LinuxNativeProtocolsDB(Library.loadLibrary(NativeProtocolsDB.LinuxLibProto.class, "c"));
+
+        } else if ("native-default".equals(backend)) {
+            return new NativeProtocolsDB.DefaultNativeProtocolsDB(Library.loadLibrary(NativeProtocolsDB.LibProto.class, "c"));
+
+        } else if ("file".equals(backend)) {
+            return FileProtocolsDB.getInstance();
+
+        } else if ("iana".equals(backend)) {
+            return IANAProtocolsDB.getInstance();
+
+        } else {
+            throw new IllegalArgumentException("unknown backend " + backend);
+        }
+    }
+
+    @Benchmark
+    public Protocol byNameHit() {
+        return db.getProtocolByName(hitName);
+    }
+
+    @Benchmark
+    public Protocol byNameMiss() {
+        return db.getProtocolByName(missName);
+    }
+
+    @Benchmark
+    public Protocol byNumberHit() {
+        return db.getProtocolByNumber(hitNumber);
+    }
+
+    @Benchmark
+    public Protocol byNumberMiss() {
+        return db.getProtocolByNumber(missNumber);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Collection<Protocol> getAllProtocols() {
+        return db.getAllProtocols();
+    }
+}
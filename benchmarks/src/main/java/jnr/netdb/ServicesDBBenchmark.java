@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import jnr.ffi.Library;
+import jnr.ffi.Platform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup latency of each {@link ServicesDB} backend that {@code Service} can select.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServicesDBBenchmark {
+
+    @Param({ "native-linux", "native-default", "file", "file-seek", "iana" })
+    public String backend;
+
+    public String hitName = "domain";
+    public int hitPort = 53;
+    public String missName = "no-such-service";
+    public int missPort = 4;
+    public String proto = "udp";
+
+    private ServicesDB db;
+
+    @Setup
+    public void setUp() {
+        db = createServicesDB(backend);
+        if (db.getServiceByName(hitName, proto) == null || db.getServiceByPort(hitPort, proto) == null) {
+            throw new IllegalStateException(backend + " cannot find " + hitName + "/" + proto);
+        }
+    }
+
+    static ServicesDB createServicesDB(String backend) {
+        if ("native-linux".equals(backend)) {
+            if (!Platform.getNativePlatform().getOS().equals(Platform.OS.LINUX)) {
+                throw new UnsupportedOperationException("the reentrant getserv*_r functions are only used on Linux");
+            }
+            return new NativeServicesDB.LinuxServicesDB(Library.loadLibrary(NativeServicesDB.LinuxLibServices.class, "c"));
+
+        } else if ("native-default".equals(backend)) {
+            return new NativeServicesDB.DefaultNativeServicesDB(Library.loadLibrary(NativeServicesDB.LibServices.class, "c"));
+
+        } else if ("file".equals(backend)) {
+            return new FileServicesDB(new File(FileServicesDB.fileName));
+
+        } else if ("file-seek".equals(backend)) {
+            return new SeekingServicesDB(new File(FileServicesDB.fileName));
+
+        } else if ("iana".equals(backend)) {
+            return IANAServicesDB.getInstance();
+
+        } else {
+            throw new IllegalArgumentException("unknown backend " + backend);
+        }
+    }
+
+    @Benchmark
+    public Service byNameHit() {
+        return db.getServiceByName(hitName, proto);
+    }
+
+    @Benchmark
+    public Service byNameMiss() {
+        return db.getServiceByName(missName, proto);
+    }
+
+    @Benchmark
+    public Service byPortHit() {
+        return db.getServiceByPort(hitPort, proto);
+    }
+
+    @Benchmark
+    public Service byPortMiss() {
+        return db.getServiceByPort(missPort, proto);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Collection<Service> getAllServices() {
+        return db.getAllServices();
+    }
+}
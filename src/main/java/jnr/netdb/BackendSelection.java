@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import jnr.netdb.NetDBConfig.Backend;
+
+/**
+ * The outcome of timing the usable backends against each other, when the
+ * backend is chosen adaptively.
+ */
+public final class BackendSelection {
+    private final Backend backend;
+    private final Map<Backend, Long> nanosPerLookup;
+    private final Set<Backend> inconsistentBackends;
+
+    BackendSelection(Backend backend, Map<Backend, Long> nanosPerLookup, Set<Backend> inconsistentBackends) {
+        this.backend = backend;
+        this.nanosPerLookup = Collections.unmodifiableMap(nanosPerLookup);
+        this.inconsistentBackends = Collections.unmodifiableSet(inconsistentBackends);
+    }
+
+    /**
+     * Returns the backend that answers lookups.
+     *
+     * @return the fastest backend that agreed with the first usable one.
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the best time measured for each backend that was timed.
+     *
+     * @return the average nanoseconds per lookup of each timed backend, in the order they were tried.
+     */
+    public Map<Backend, Long> getNanosPerLookup() {
+        return nanosPerLookup;
+    }
+
+    /**
+     * Returns the backends that were left out because they gave different answers
+     * from the first usable backend.
+     *
+     * @return the inconsistent backends.
+     */
+    public Set<Backend> getInconsistentBackends() {
+        return inconsistentBackends;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<BackendSelection: Backend: %s, Nanos per lookup: %s, Inconsistent: %s>",
+                backend, nanosPerLookup, inconsistentBackends);
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jnr.netdb.NetDBConfig.Backend;
+
+/**
+ * Chooses between usable backends by timing lookups of a fixed sample of well known
+ * entries in each.
+ *
+ * The first backend that answers, in the configured order, is the reference: any
+ * other backend that gives a different answer for one of the sampled lookups, or
+ * fails, is left out, so the choice only ever trades speed for speed.  Each backend
+ * gets an equal share of the time budget, checked after every lookup: one that is
+ * still answering the sample when its share runs out (e.g. NIS behind the native
+ * functions) is left out, or kept without timing the others if it is the reference,
+ * as there is nothing to compare them with.  Backends that are fast enough are timed
+ * for up to {@link #MAX_ROUNDS} rounds within their share.
+ */
+final class BackendSelector {
+    /** The maximum number of timed rounds */
+    static final int MAX_ROUNDS = 10;
+
+    /** A name no services or protocols file should contain, to time lookups that miss */
+    static final String MISSING_NAME = "jnr-netdb-no-such-entry";
+
+    /** The services looked up; most hosts have most of them, and missing ones are compared too */
+    private static final List<Service> SAMPLE_SERVICES = Collections.unmodifiableList(Arrays.asList(
+            service("ftp-data", 20, "tcp"),
+            service("ftp", 21, "tcp"),
+            service("ssh", 22, "tcp"),
+            service("telnet", 23, "tcp"),
+            service("smtp", 25, "tcp"),
+            service("domain", 53, "tcp"),
+            service("domain", 53, "udp"),
+            service("tftp", 69, "udp"),
+            service("gopher", 70, "tcp"),
+            service("finger", 79, "tcp"),
+            service("http", 80, "tcp"),
+            service("kerberos", 88, "udp"),
+            service("pop3", 110, "tcp"),
+            service("sunrpc", 111, "udp"),
+            service("auth", 113, "tcp"),
+            service("nntp", 119, "tcp"),
+            service("ntp", 123, "udp"),
+            service("netbios-ns", 137, "udp"),
+            service("imap2", 143, "tcp"),
+            service("snmp", 161, "udp"),
+            service("bgp", 179, "tcp"),
+            service("ldap", 389, "tcp"),
+            service("https", 443, "tcp"),
+            service("microsoft-ds", 445, "tcp"),
+            service("syslog", 514, "udp"),
+            service("submission", 587, "tcp"),
+            service("ldaps", 636, "tcp"),
+            service("rsync", 873, "tcp"),
+            service("imaps", 993, "tcp"),
+            service("pop3s", 995, "tcp"),
+            service("mysql", 3306, "tcp"),
+            service("postgresql", 5432, "tcp")));
+
+    /** The protocols looked up */
+    private static final List<Protocol> SAMPLE_PROTOCOLS = Collections.unmodifiableList(Arrays.asList(
+            protocol("ip", 0),
+            protocol("icmp", 1),
+            protocol("igmp", 2),
+            protocol("ggp", 3),
+            protocol("ipencap", 4),
+            protocol("st", 5),
+            protocol("tcp", 6),
+            protocol("egp", 8),
+            protocol("igp", 9),
+            protocol("pup", 12),
+            protocol("udp", 17),
+            protocol("hmp", 20),
+            protocol("xns-idp", 22),
+            protocol("rdp", 27),
+            protocol("iso-tp4", 29),
+            protocol("dccp", 33),
+            protocol("xtp", 36),
+            protocol("ddp", 37),
+            protocol("idpr-cmtp", 38),
+            protocol("ipv6", 41),
+            protocol("ipv6-route", 43),
+            protocol("ipv6-frag", 44),
+            protocol("idrp", 45),
+            protocol("rsvp", 46),
+            protocol("gre", 47),
+            protocol("esp", 50),
+            protocol("ah", 51),
+            protocol("ipv6-icmp", 58),
+            protocol("ospf", 89),
+            protocol("pim", 103),
+            protocol("vrrp", 112),
+            protocol("sctp", 132)));
+
+    private BackendSelector() {
+    }
+
+    private static Service service(String name, int port, String proto) {
+        return new Service(name, port, proto, Collections.<String>emptyList());
+    }
+
+    private static Protocol protocol(String name, int proto) {
+        return new Protocol(name, proto, Collections.<String>emptyList());
+    }
+
+    /**
+     * Chooses the fastest of the services DBs that agree with the first one.
+     *
+     * @param candidates the usable DBs, in the configured order.
+     * @param budgetMillis roughly how long to spend timing them.
+     * @return the choice, with the timings it was based on.
+     */
+    static BackendSelection selectServices(Map<Backend, ServicesDB> candidates, long budgetMillis) {
+        return log("services", select(candidates, new ServiceLookups(SAMPLE_SERVICES), budgetMillis));
+    }
+
+    /**
+     * Chooses the fastest of the protocols DBs that agree with the first one.
+     *
+     * @param candidates the usable DBs, in the configured order.
+     * @param budgetMillis roughly how long to spend timing them.
+     * @return the choice, with the timings it was based on.
+     */
+    static BackendSelection selectProtocols(Map<Backend, ProtocolsDB> candidates, long budgetMillis) {
+        return log("protocols", select(candidates, new ProtocolLookups(SAMPLE_PROTOCOLS), budgetMillis));
+    }
+
+    private static BackendSelection log(String what, BackendSelection selection) {
+        Logger.getLogger(BackendSelector.class.getName()).log(Level.FINE, "Chose " + what + " backend " + selection);
+        return selection;
+    }
+
+    private static <T> BackendSelection select(Map<Backend, T> candidates, Lookups<T> lookups, long budgetMillis) {
+        Map<Backend, Long> best = new LinkedHashMap<Backend, Long>();
+        Set<Backend> inconsistent = EnumSet.noneOf(Backend.class);
+        Backend reference = null;
+        List<Object> expected = null;
+
+        long share = budgetMillis * 1000000L / candidates.size();
+        for (Map.Entry<Backend, T> e : candidates.entrySet()) {
+            long start = System.nanoTime();
+            long deadline = start + share;
+
+            // Compare the backend with the first one that answers, which also warms it up
+            List<Object> answers = new ArrayList<Object>(lookups.size());
+            if (!answer(lookups, e.getValue(), deadline, answers)) {
+                inconsistent.add(e.getKey());
+                continue;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (answers.size() < lookups.size()) {
+                Logger.getLogger(BackendSelector.class.getName()).log(Level.FINE, "backend " + e.getKey() + " ran out of time");
+                if (reference == null) {
+                    reference = e.getKey();
+                    break;
+                }
+                continue;
+            }
+
+            if (reference == null) {
+                reference = e.getKey();
+                expected = answers;
+
+            } else if (!answers.equals(expected)) {
+                inconsistent.add(e.getKey());
+                continue;
+            }
+
+            best.put(e.getKey(), time(lookups, e.getValue(), deadline, elapsed));
+        }
+
+        // Ties go to the earlier backend
+        Backend fastest = null;
+        Map<Backend, Long> nanosPerLookup = new LinkedHashMap<Backend, Long>();
+        for (Map.Entry<Backend, Long> e : best.entrySet()) {
+            if (fastest == null || e.getValue() < best.get(fastest)) {
+                fastest = e.getKey();
+            }
+            nanosPerLookup.put(e.getKey(), e.getValue() / lookups.size());
+        }
+
+        if (fastest == null) {
+            // Nothing was timed, so keep the first usable backend, or the first one if none is
+            fastest = reference != null ? reference : candidates.keySet().iterator().next();
+        }
+
+        return new BackendSelection(fastest, nanosPerLookup, inconsistent);
+    }
+
+    /**
+     * Adds the answers of a DB to the lookups to a list, until they are all answered or
+     * the deadline has passed.
+     *
+     * @return {@code false} if any lookup failed.
+     */
+    private static <T> boolean answer(Lookups<T> lookups, T db, long deadline, List<Object> answers) {
+        try {
+            for (int i = 0; i < lookups.size(); i++) {
+                answers.add(lookups.lookup(db, i));
+                if (System.nanoTime() - deadline > 0 && i + 1 < lookups.size()) {
+                    break;
+                }
+            }
+
+            return true;
+
+        } catch (Throwable t) {
+            Logger.getLogger(BackendSelector.class.getName()).log(Level.FINE, "lookup failed", t);
+            return false;
+        }
+    }
+
+    /**
+     * Times rounds of the lookups in a DB, until {@link #MAX_ROUNDS} have been timed or
+     * the deadline has passed.  A round that is cut short by the deadline does not count.
+     *
+     * @param firstRound the time taken by the first round.
+     * @return the fastest time of a whole round.
+     */
+    private static <T> long time(Lookups<T> lookups, T db, long deadline, long firstRound) {
+        long best = firstRound;
+        for (int round = 1; round < MAX_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups.size(); i++) {
+                lookups.lookup(db, i);
+                if (System.nanoTime() - deadline > 0) {
+                    return best;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    /**
+     * A fixed list of lookups, each giving an answer that can be compared between DBs
+     */
+    private static abstract class Lookups<T> {
+        abstract int size();
+        abstract Object lookup(T db, int index);
+    }
+
+    /**
+     * Looks each sampled service up by name and by port, then looks up a missing name
+     */
+    private static final class ServiceLookups extends Lookups<ServicesDB> {
+        private final List<Service> sample;
+
+        ServiceLookups(List<Service> sample) {
+            this.sample = sample;
+        }
+
+        int size() {
+            return sample.size() * 2 + 1;
+        }
+
+        Object lookup(ServicesDB db, int index) {
+            if (index == sample.size() * 2) {
+                return answer(db.getServiceByName(MISSING_NAME, null));
+            }
+
+            Service s = sample.get(index / 2);
+            return answer(index % 2 == 0 ? db.getServiceByName(s.getName(), s.proto) : db.getServiceByPort(s.getPort(), s.proto));
+        }
+
+        private static String answer(Service s) {
+            return s != null ? s.getName() + " " + s.getPort() + "/" + s.proto : null;
+        }
+    }
+
+    /**
+     * Looks each sampled protocol up by name and by number, then looks up a missing name
+     */
+    private static final class ProtocolLookups extends Lookups<ProtocolsDB> {
+        private final List<Protocol> sample;
+
+        ProtocolLookups(List<Protocol> sample) {
+            this.sample = sample;
+        }
+
+        int size() {
+            return sample.size() * 2 + 1;
+        }
+
+        Object lookup(ProtocolsDB db, int index) {
+            if (index == sample.size() * 2) {
+                return answer(db.getProtocolByName(MISSING_NAME));
+            }
+
+            Protocol p = sample.get(index / 2);
+            return answer(index % 2 == 0 ? db.getProtocolByName(p.getName()) : db.getProtocolByNumber(p.getProto()));
+        }
+
+        private static String answer(Protocol p) {
+            return p != null ? p.getName() + " " + p.getProto() : null;
+        }
+    }
+}
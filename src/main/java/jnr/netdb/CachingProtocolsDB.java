@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collection;
+
+/**
+ * Caches the results of lookups in another {@link ProtocolsDB}
+ *
+ * Protocols that were found and lookups that found nothing are cached separately,
+ * each with their own size and time to live.
+ */
+final class CachingProtocolsDB implements ProtocolsDB {
+    private final ProtocolsDB db;
+
+    /** Protocols that were found, or null if they are not cached */
+    private final LookupCache<LookupKey, Protocol> cache;
+
+    /** Lookups that found nothing, or null if they are not cached */
+    private final LookupCache<LookupKey, Boolean> missCache;
+
+    CachingProtocolsDB(ProtocolsDB db, int maximumSize, long ttlMillis) {
+        this(db, maximumSize, ttlMillis, 0, 0);
+    }
+
+    CachingProtocolsDB(ProtocolsDB db, int maximumSize, long ttlMillis, int missMaximumSize, long missTtlMillis) {
+        this.db = db;
+        this.cache = maximumSize > 0 ? new LookupCache<LookupKey, Protocol>(maximumSize, ttlMillis) : null;
+        this.missCache = missMaximumSize > 0 ? new LookupCache<LookupKey, Boolean>(missMaximumSize, missTtlMillis) : null;
+    }
+
+    /**
+     * Wraps a DB in a cache, if the configuration enables one.
+     *
+     * @return the caching DB, or {@code db} itself if caching is not enabled.
+     */
+    static ProtocolsDB wrap(ProtocolsDB db, NetDBConfig config) {
+        return config.getCacheMaxSize() > 0 || config.getNegativeCacheMaxSize() > 0
+                ? new CachingProtocolsDB(db, config.getCacheMaxSize(), config.getCacheTtlMillis(),
+                        config.getNegativeCacheMaxSize(), config.getNegativeCacheTtlMillis())
+                : db;
+    }
+
+    public Protocol getProtocolByName(String name) {
+        LookupKey key = LookupKey.byName(name, null);
+        Protocol p;
+        if (cache != null && (p = cache.get(key)) != null) {
+            return p;
+        }
+
+        if (missCache != null && missCache.get(key) != null) {
+            return null;
+        }
+
+        return cache(key, db.getProtocolByName(name));
+    }
+
+    public Protocol getProtocolByNumber(Integer number) {
+        LookupKey key = LookupKey.byNumber(number, null);
+        Protocol p;
+        if (cache != null && (p = cache.get(key)) != null) {
+            return p;
+        }
+
+        if (missCache != null && missCache.get(key) != null) {
+            return null;
+        }
+
+        return cache(key, db.getProtocolByNumber(number));
+    }
+
+    public Collection<Protocol> getAllProtocols() {
+        return db.getAllProtocols();
+    }
+
+    private Protocol cache(LookupKey key, Protocol p) {
+        if (p != null) {
+            if (cache != null) {
+                cache.put(key, p);
+            }
+
+        } else if (missCache != null) {
+            missCache.put(key, Boolean.TRUE);
+        }
+
+        return p;
+    }
+
+    CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : CacheStats.EMPTY;
+    }
+
+    CacheStats getMissCacheStats() {
+        return missCache != null ? missCache.stats() : CacheStats.EMPTY;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collection;
+
+/**
+ * Caches the results of lookups in another {@link ServicesDB}
+ *
+ * Services that were found and lookups that found nothing are cached separately,
+ * each with their own size and time to live, so a flood of misses cannot push the
+ * hot set of services out of the cache, and misses can be given a shorter lifetime.
+ */
+final class CachingServicesDB implements ServicesDB {
+    private final ServicesDB db;
+
+    /** Services that were found, or null if they are not cached */
+    private final LookupCache<LookupKey, Service> cache;
+
+    /** Lookups that found nothing, or null if they are not cached */
+    private final LookupCache<LookupKey, Boolean> missCache;
+
+    CachingServicesDB(ServicesDB db, int maximumSize, long ttlMillis) {
+        this(db, maximumSize, ttlMillis, 0, 0);
+    }
+
+    CachingServicesDB(ServicesDB db, int maximumSize, long ttlMillis, int missMaximumSize, long missTtlMillis) {
+        this.db = db;
+        this.cache = maximumSize > 0 ? new LookupCache<LookupKey, Service>(maximumSize, ttlMillis) : null;
+        this.missCache = missMaximumSize > 0 ? new LookupCache<LookupKey, Boolean>(missMaximumSize, missTtlMillis) : null;
+    }
+
+    /**
+     * Wraps a DB in a cache, if the configuration enables one.
+     *
+     * @return the caching DB, or {@code db} itself if caching is not enabled.
+     */
+    static ServicesDB wrap(ServicesDB db, NetDBConfig config) {
+        return config.getCacheMaxSize() > 0 || config.getNegativeCacheMaxSize() > 0
+                ? new CachingServicesDB(db, config.getCacheMaxSize(), config.getCacheTtlMillis(),
+                        config.getNegativeCacheMaxSize(), config.getNegativeCacheTtlMillis())
+                : db;
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        LookupKey key = LookupKey.byName(name, proto);
+        Service s;
+        if (cache != null && (s = cache.get(key)) != null) {
+            return s;
+        }
+
+        if (missCache != null && missCache.get(key) != null) {
+            return null;
+        }
+
+        return cache(key, db.getServiceByName(name, proto));
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        LookupKey key = LookupKey.byNumber(port, proto);
+        Service s;
+        if (cache != null && (s = cache.get(key)) != null) {
+            return s;
+        }
+
+        if (missCache != null && missCache.get(key) != null) {
+            return null;
+        }
+
+        return cache(key, db.getServiceByPort(port, proto));
+    }
+
+    public Collection<Service> getAllServices() {
+        return db.getAllServices();
+    }
+
+    private Service cache(LookupKey key, Service s) {
+        if (s != null) {
+            if (cache != null) {
+                cache.put(key, s);
+            }
+
+        } else if (missCache != null) {
+            missCache.put(key, Boolean.TRUE);
+        }
+
+        return s;
+    }
+
+    CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : CacheStats.EMPTY;
+    }
+
+    CacheStats getMissCacheStats() {
+        return missCache != null ? missCache.stats() : CacheStats.EMPTY;
+    }
+}
@@ -20,38 +20,50 @@ package jnr.netdb;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-
-import jnr.ffi.Platform;
-
-import static jnr.ffi.Platform.OS.WINDOWS;
 
 /**
+ * Parses /etc/protocols
+ *
+ * The file is parsed once, when the instance is created, into an in-memory
+ * {@link ProtocolsIndex} and all lookups are answered from that index.
  *
+ * If {@link NetDBConfig#isWatch()} is true, or the file is parsed in place
+ * of the native functions, it is watched for changes, and a new index is built on
+ * the watcher thread and swapped in, so lookups never block or see a partially
+ * built index.
  */
 class FileProtocolsDB implements ProtocolsDB {
     private final File protocolsFile;
+    private volatile ProtocolsIndex index;
 
     public static final FileProtocolsDB getInstance() {
         return SingletonHolder.INSTANCE;
     }
 
     private static final class SingletonHolder {
-        public static final FileProtocolsDB INSTANCE = load();
+        public static final FileProtocolsDB INSTANCE = load(NetDBConfig.current().getProtocolsFile());
     }
 
     FileProtocolsDB(File protocolsFile) {
         this.protocolsFile = protocolsFile;
+        this.index = buildIndex(protocolsFile);
     }
 
-    private static final File locateProtocolsFile() {
-        if (Platform.getNativePlatform().getOS().equals(WINDOWS)) {
+    /**
+     * Checks for Windows the same way jnr-ffi does, without loading it
+     */
+    private static final boolean isWindows() {
+        try {
+            return System.getProperty("os.name", "").startsWith("Windows");
+        } catch (SecurityException se) {
+            return false;
+        }
+    }
+
+    static final File locateProtocolsFile() {
+        if (isWindows()) {
             String systemRoot;
             try {
                 // FIXME: %SystemRoot% is typically *not* present in Java env,
@@ -71,93 +83,108 @@ class FileProtocolsDB implements ProtocolsDB {
         }
     }
 
-    private static FileProtocolsDB load() {
+    /**
+     * Loads a protocols file, which is watched if {@link NetDBConfig#isWatch()} is true.
+     *
+     * @param protocolsFile the file to load.
+     * @return a new DB, or {@code null} if the file cannot be read or has no valid entries.
+     */
+    static FileProtocolsDB load(File protocolsFile) {
+        return load(protocolsFile, NetDBConfig.current().isWatch());
+    }
+
+    /**
+     * Loads a protocols file.
+     *
+     * @param protocolsFile the file to load.
+     * @param watch whether to reload the file when it changes.
+     * @return a new DB, or {@code null} if the file cannot be read or has no valid entries.
+     */
+    static FileProtocolsDB load(File protocolsFile, boolean watch) {
         try {
-            File protocolsFile = locateProtocolsFile();
-            // Fail unless /etc/protocols can be read and contains at least one valid entry
-            NetDBParser parser = new NetDBParser(new FileReader(protocolsFile));
-            try {
-                parser.iterator().next();
-            } finally {
-                parser.close();
+            // Fail unless the file can be read and contains at least one valid entry
+            FileProtocolsDB db = new FileProtocolsDB(protocolsFile);
+            if (db.index.isEmpty()) {
+                return null;
+            }
+
+            if (watch) {
+                watch(db);
             }
 
-            return new FileProtocolsDB(protocolsFile);
+            return db;
 
         } catch (Throwable t) {
             return null;
         }
     }
 
-    public Protocol getProtocolByName(final String name) {
-
-        return parse(new Filter() {
-
-            public boolean filter(Protocol p) {
-                if (p.getName().equals(name)) {
-                    return true;
-                }
-
-                for (String alias : p.getAliases()) {
-                    if (alias.equals(name)) {
-                        return true;
-                    }
+    /**
+     * Reloads a DB loaded from a protocols file whenever the file changes.  Other
+     * DBs are left alone.
+     *
+     * @param db a DB returned by {@link #load(File, boolean)}, which was not watched.
+     */
+    static void watch(ProtocolsDB db) {
+        if (db instanceof FileProtocolsDB) {
+            final FileProtocolsDB fileDB = (FileProtocolsDB) db;
+            FileWatcher.getInstance().watch(fileDB.protocolsFile, new Runnable() {
+                public void run() {
+                    fileDB.reload();
                 }
+            });
+        }
+    }
 
-                return false;
-            }
-        });
+    /**
+     * Re-reads the protocols file, and replaces the index with the new one.  If
+     * the file cannot be read, or has no valid entries (e.g. it has just been
+     * truncated to be rewritten in place), the previous index is kept.
+     */
+    void reload() {
+        ProtocolsIndex next = buildIndex(protocolsFile);
+        if (!next.isEmpty()) {
+            index = next;
+        }
     }
 
-    public Protocol getProtocolByNumber(final Integer proto) {
-        return parse(new Filter() {
+    public Protocol getProtocolByName(String name) {
+        return index.getProtocolByName(name);
+    }
 
-            public boolean filter(Protocol p) {
-                return p.getProto() == proto.intValue();
-            }
-        });
+    public Protocol getProtocolByNumber(Integer proto) {
+        return index.getProtocolByNumber(proto);
     }
 
     public Collection<Protocol> getAllProtocols() {
-
-        final List<Protocol> allProtocols = new LinkedList<Protocol>();
-
-        parse(new Filter() {
-
-            public boolean filter(Protocol s) {
-                allProtocols.add(s);
-                return false;
-            }
-        });
-
-        return Collections.unmodifiableList(allProtocols);
+        return index.getAllProtocols();
     }
 
-    private final NetDBParser loadProtocolsFile() {
+    private static ProtocolsIndex buildIndex(File protocolsFile) {
+        ProtocolsIndex.Builder builder = new ProtocolsIndex.Builder();
+        NetDBParser parser;
         try {
-            return new NetDBParser(new FileReader(protocolsFile));
+            parser = NetDBParser.open(protocolsFile);
         } catch (FileNotFoundException ex) {
-            return new NetDBParser(new StringReader(""));
+            return builder.build();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
         }
-    }
-
-    private static interface Filter {
-        boolean filter(Protocol s);
-    }
-
-    private final Protocol parse(Filter filter) {
-        NetDBParser parser = loadProtocolsFile();
 
         try {
-            for (NetDBEntry e : parser) {
-                try {
-                    Protocol p = new Protocol(e.name, Integer.parseInt(e.data, 10), e.aliases);
-                    if (filter.filter(p)) {
-                        return p;
-                    }
-                } catch (NumberFormatException ex) {}
+            NetDBTokenizer t = parser.tokenizer();
+            NetDBStringPool pool = new NetDBStringPool();
+            while (t.nextLine()) {
+                int proto = t.parseInt(t.fieldStart(1), t.fieldEnd(1));
+                if (proto >= 0) {
+                    String name = pool.get(t, t.fieldStart(0), t.fieldEnd(0));
+                    builder.add(new Protocol(name, proto, FileServicesDB.parseAliases(t, pool)));
+                }
             }
 
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+
         } finally {
             try {
                 parser.close();
@@ -166,6 +193,6 @@ class FileProtocolsDB implements ProtocolsDB {
             }
         }
 
-        return null;
+        return builder.build();
     }
 }
@@ -19,141 +19,225 @@
 package jnr.netdb;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Parses /etc/services
+ *
+ * The file is parsed once, when the instance is created, into an in-memory
+ * {@link ServicesSnapshot} and all lookups are answered from that index.
+ *
+ * If {@link NetDBConfig#isFileLowMemory()} is true, a {@link SeekingServicesDB}
+ * is used instead, which only keeps line offsets in memory and reads the file on
+ * each lookup.
+ *
+ * If {@link NetDBConfig#isWatch()} is true, or the file is parsed in place of the
+ * native functions, it is watched for changes, and a new index is built on
+ * the watcher thread and swapped in, so lookups never block or see a partially
+ * built index.  The new index shares the entries of the unchanged part of the
+ * file with the old one.
  */
 final class FileServicesDB implements ServicesDB {
-    public static String fileName = "/etc/services";
+    /** The services file of the C library, and the default of {@link NetDBConfig#getServicesFile()} */
+    static final String fileName = "/etc/services";
+
+    private final File servicesFile;
+    private volatile ServicesSnapshot snapshot;
 
     public static final ServicesDB getInstance() {
         return SingletonHolder.INSTANCE;
     }
     
     private static final class SingletonHolder {
-        public static final ServicesDB INSTANCE = load();
+        public static final ServicesDB INSTANCE = load(NetDBConfig.current().getServicesFile());
+    }
+
+    FileServicesDB(File servicesFile) {
+        this.servicesFile = servicesFile;
+        this.snapshot = ServicesSnapshot.load(servicesFile, null);
+    }
+
+    /**
+     * Loads a services file, as set up by the current {@link NetDBConfig}.
+     *
+     * @param servicesFile the file to load.
+     * @return a new DB, or {@code null} if the file cannot be read or has no valid entries.
+     */
+    static final ServicesDB load(File servicesFile) {
+        NetDBConfig config = NetDBConfig.current();
+        return load(servicesFile, config.isFileLowMemory(), config.isWatch());
     }
 
-    private static final ServicesDB load() {
+    /**
+     * Loads a services file.
+     *
+     * @param servicesFile the file to load.
+     * @param lowMemory whether to read the file on each lookup, rather than index it in memory.
+     * @param watch whether to reload the file when it changes.
+     * @return a new DB, or {@code null} if the file cannot be read or has no valid entries.
+     */
+    static final ServicesDB load(File servicesFile, boolean lowMemory, boolean watch) {
+        if (lowMemory) {
+            return loadSeeking(servicesFile, watch);
+        }
+
         try {
-            // Fail unless /etc/services can be read and contains at least one valid entry
-            NetDBParser parser = parseServicesFile();
-            try {
-                parser.iterator().next();
-            } finally {
-                parser.close();
+            // Fail unless the file can be read and contains at least one valid entry
+            FileServicesDB db = new FileServicesDB(servicesFile);
+            if (db.snapshot.isEmpty()) {
+                return null;
             }
-            
-            return new FileServicesDB();
+
+            if (watch) {
+                watch(db);
+            }
+
+            return db;
 
         } catch (Throwable t) {
             return null;
         }
     }
 
-    static final NetDBParser parseServicesFile() {
+    private static final ServicesDB loadSeeking(File servicesFile, boolean watch) {
         try {
-            return new NetDBParser(new FileReader(new File(fileName)));
-        } catch (FileNotFoundException ex) {
-            return new NetDBParser(new StringReader(""));
+            SeekingServicesDB db = new SeekingServicesDB(servicesFile);
+            if (db.isEmpty()) {
+                return null;
+            }
+
+            if (watch) {
+                watch(db);
+            }
+
+            return db;
+
+        } catch (Throwable t) {
+            return null;
         }
     }
 
-    private static final Service parseServicesEntry(NetDBEntry e) {
-        
-        String[] portproto = e.data.split("/");
-        if (portproto.length < 2) {
+    /**
+     * Reloads a DB loaded from a services file whenever the file changes.  Other
+     * DBs are left alone.
+     *
+     * @param db a DB returned by {@link #load(File, boolean, boolean)}, which was not watched.
+     */
+    static final void watch(ServicesDB db) {
+        if (db instanceof FileServicesDB) {
+            final FileServicesDB fileDB = (FileServicesDB) db;
+            FileWatcher.getInstance().watch(fileDB.servicesFile, new Runnable() {
+                public void run() {
+                    fileDB.reload();
+                }
+            });
+
+        } else if (db instanceof SeekingServicesDB) {
+            final SeekingServicesDB seekingDB = (SeekingServicesDB) db;
+            FileWatcher.getInstance().watch(seekingDB.getServicesFile(), new Runnable() {
+                public void run() {
+                    seekingDB.reload();
+                }
+            });
+        }
+    }
+
+    /**
+     * Parses the service on the current line of the tokenizer.
+     *
+     * @return a new {@code Service}, or {@code null} if the line is not a valid services entry.
+     */
+    static final Service parseServicesEntry(NetDBTokenizer t, NetDBStringPool pool) {
+        int dataStart = t.fieldStart(1), dataEnd = t.fieldEnd(1);
+        int slash = t.indexOf(dataStart, dataEnd, (byte) '/');
+        if (slash < 0) {
             return null;
         }
 
-        int port;
-        try {
-            port = Integer.parseInt(portproto[0], 10);
-        } catch (NumberFormatException ex) {
+        int port = t.parseInt(dataStart, slash);
+        if (port < 0) {
             return null;
         }
 
-        return new Service(e.name, port, portproto[1], e.aliases);
-    }
+        int protoEnd = t.indexOf(slash + 1, dataEnd, (byte) '/');
+        String proto = pool.get(t, slash + 1, protoEnd < 0 ? dataEnd : protoEnd);
+        String name = pool.get(t, t.fieldStart(0), t.fieldEnd(0));
 
-    private static interface Filter {
-        boolean filter(Service s);
+        return new Service(name, port, proto, parseAliases(t, pool));
     }
 
-    private final Service parse(Filter filter) {
-        NetDBParser parser = parseServicesFile();
+    /**
+     * Checks if the current line of the tokenizer describes exactly the same service as {@code s}
+     */
+    static final boolean matchesServicesEntry(NetDBTokenizer t, Service s) {
+        int fieldCount = t.fieldCount();
+        Collection<String> aliases = s.getAliases();
+        if (aliases.size() != fieldCount - 2 || !t.regionMatches(t.fieldStart(0), t.fieldEnd(0), s.getName())) {
+            return false;
+        }
 
-        try {
-            for (NetDBEntry e : parser) {
-                Service s = parseServicesEntry(e);
-                if (s != null && filter.filter(s)) {
-                    return s;
-                }
-            }
+        int dataStart = t.fieldStart(1), dataEnd = t.fieldEnd(1);
+        int slash = t.indexOf(dataStart, dataEnd, (byte) '/');
+        if (slash < 0 || t.parseInt(dataStart, slash) != s.getPort()) {
+            return false;
+        }
 
-        } finally {
-            try {
-                parser.close();
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
+        int protoEnd = t.indexOf(slash + 1, dataEnd, (byte) '/');
+        if (!t.regionMatches(slash + 1, protoEnd < 0 ? dataEnd : protoEnd, s.proto)) {
+            return false;
+        }
+
+        int i = 2;
+        for (String alias : aliases) {
+            if (!t.regionMatches(t.fieldStart(i), t.fieldEnd(i), alias)) {
+                return false;
             }
+            i++;
         }
 
-        return null;
+        return true;
     }
 
-    public Service getServiceByName(final String name, final String proto) {
-        return parse(new Filter() {
-
-            public boolean filter(Service s) {
-                if (!s.proto.equals(proto) && proto != null) {
-                    return false;
-                }
+    static final List<String> parseAliases(NetDBTokenizer t, NetDBStringPool pool) {
+        int fieldCount = t.fieldCount();
+        if (fieldCount <= 2) {
+            return Collections.emptyList();
+        }
 
-                if (s.getName().equals(name)) {
-                    return true;
-                }
+        List<String> aliases = new ArrayList<String>(fieldCount - 2);
+        for (int i = 2; i < fieldCount; ++i) {
+            aliases.add(pool.get(t, t.fieldStart(i), t.fieldEnd(i)));
+        }
 
-                for (String alias : s.getAliases()) {
-                    if (alias.equals(name)) {
-                        return true;
-                    }
-                }
+        return aliases;
+    }
 
-                return false;
-            }
-        });
+    /**
+     * Re-reads the services file, and replaces the index with the new one.
+     *
+     * Only the part of the file after the first changed line is parsed again.  If
+     * the file cannot be read, or has no valid entries (e.g. it has just been
+     * truncated to be rewritten in place), the previous index is kept.
+     */
+    void reload() {
+        ServicesSnapshot next = ServicesSnapshot.load(servicesFile, snapshot);
+        if (!next.isEmpty()) {
+            snapshot = next;
+        }
     }
 
-    public Service getServiceByPort(final Integer port, final String proto) {
-        return parse(new Filter() {
+    public Service getServiceByName(String name, String proto) {
+        return snapshot.getServiceByName(name, proto);
+    }
 
-            public boolean filter(Service s) {
-                return s.getPort() == port.intValue() && (s.proto.equals(proto) || proto == null);
-            }
-        });
+    public Service getServiceByPort(Integer port, String proto) {
+        return snapshot.getServiceByPort(port, proto);
     }
 
     public Collection<Service> getAllServices() {
-
-        final List<Service> allServices = new LinkedList<Service>();
-
-        parse(new Filter() {
-
-            public boolean filter(Service s) {
-                allServices.add(s);
-                return false;
-            }
-        });
-        
-        return Collections.unmodifiableList(allServices);
+        return snapshot.getAllServices();
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Watches files for changes on a background thread.
+ *
+ * A file is considered changed when its modification time, size or identity
+ * (e.g. inode, when the file is replaced by a rename) changes.  Events from a
+ * {@link WatchService} on the parent directory trigger an immediate check, and
+ * all files are also checked every poll interval, for file systems that do
+ * not deliver events.  Missing files are not reported, so a file that is
+ * briefly absent while being replaced does not look empty.
+ */
+final class FileWatcher implements Runnable, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(FileWatcher.class.getName());
+
+    /** How long to let a writer finish after an event, before checking the file */
+    private static final long SETTLE_MILLIS = 50;
+
+    private final long pollIntervalMillis;
+    private final List<WatchedFile> files = new CopyOnWriteArrayList<WatchedFile>();
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private static final class SingletonHolder {
+        static final FileWatcher INSTANCE = new FileWatcher(NetDBConfig.current().getWatchIntervalMillis());
+    }
+
+    static FileWatcher getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    FileWatcher(long pollIntervalMillis) {
+        this.pollIntervalMillis = Math.max(pollIntervalMillis, 1);
+
+        WatchService ws;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            ws = null;
+        }
+        this.watchService = ws;
+
+        this.thread = new Thread(this, "jnr-netdb-file-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Calls {@code onChange} on the watcher thread whenever {@code file} changes.
+     */
+    void watch(File file, Runnable onChange) {
+        Path path = file.toPath().toAbsolutePath();
+        files.add(new WatchedFile(path, onChange));
+
+        if (watchService != null && path.getParent() != null) {
+            try {
+                path.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "cannot watch " + path.getParent() + ", polling instead", ex);
+            }
+        }
+
+        synchronized (thread) {
+            if (!thread.isAlive() && !closed) {
+                thread.start();
+            }
+        }
+    }
+
+    public void run() {
+        try {
+            while (!closed) {
+                if (waitForEvent()) {
+                    Thread.sleep(SETTLE_MILLIS);
+                }
+
+                for (WatchedFile f : files) {
+                    f.checkForChange();
+                }
+            }
+
+        } catch (InterruptedException ex) {
+            // closed
+
+        } catch (ClosedWatchServiceException ex) {
+            // closed while waiting for an event
+        }
+    }
+
+    /**
+     * Waits for up to one poll interval for a change in any watched directory.
+     *
+     * @return {@code true} if there was an event.
+     */
+    private boolean waitForEvent() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(pollIntervalMillis);
+            return false;
+        }
+
+        WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+        boolean event = false;
+        for (; key != null; key = watchService.poll()) {
+            event |= !key.pollEvents().isEmpty();
+            key.reset();
+        }
+
+        return event;
+    }
+
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    private static final class WatchedFile {
+        private final Path path;
+        private final Runnable onChange;
+        private FileStamp stamp;
+
+        WatchedFile(Path path, Runnable onChange) {
+            this.path = path;
+            this.onChange = onChange;
+            this.stamp = FileStamp.of(path);
+        }
+
+        void checkForChange() {
+            FileStamp current = FileStamp.of(path);
+            if (current == null || current.equals(stamp)) {
+                return;
+            }
+
+            stamp = current;
+            try {
+                onChange.run();
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "failed to reload " + path, t);
+            }
+        }
+    }
+
+    /**
+     * The modification time, size and identity of a file
+     */
+    static final class FileStamp {
+        private final long lastModified;
+        private final long size;
+        private final Object fileKey;
+
+        private FileStamp(long lastModified, long size, Object fileKey) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * Reads the current stamp of a file.
+         *
+         * @return the stamp, or {@code null} if the file does not exist.
+         */
+        static FileStamp of(Path path) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileStamp(attrs.lastModifiedTime().toMillis(), attrs.size(), attrs.fileKey());
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileStamp)) {
+                return false;
+            }
+
+            FileStamp s = (FileStamp) o;
+            return lastModified == s.lastModified && size == s.size
+                    && (fileKey != null ? fileKey.equals(s.fileKey) : s.fileKey == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lastModified ^ (lastModified >>> 32)) * 31 + (int) size;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+/**
+ * An approximate count of how often keys have been seen recently (a count-min sketch).
+ *
+ * Each key maps to one 4-bit counter in each of four rows, and its frequency is
+ * the smallest of those counters.  Once the number of increments reaches ten times
+ * the size of the cache, all counters are halved so old popularity fades away.
+ *
+ * Updates are not synchronized; under contention some increments may be lost,
+ * which only makes the estimate slightly less accurate.
+ */
+final class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = { 0x97cb3127, 0xc3a5c85c, 0x2e2a7b35, 0x9ae16a3b };
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        // Keep the sketch wide enough that one-off keys rarely collide with the hot set
+        int width = Integer.highestOneBit(Math.max(256, maximumSize * 4 - 1)) * 2;
+        this.table = new byte[width * DEPTH];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(10 * maximumSize, 16);
+    }
+
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[index(h, i)]);
+        }
+
+        return min;
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int idx = index(h, i);
+            if (table[idx] < MAX_COUNT) {
+                table[idx]++;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int index(int h, int row) {
+        int x = h * SEEDS[row];
+        x ^= x >>> 17;
+        return row * (mask + 1) + (x & mask);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>= 1;
+        }
+        additions = 0;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates {@link IANAProtocolsTable}, the entries of {@link IANAProtocolsDB}.
+ *
+ * The table is small enough to be Java code, which is checked in; run
+ * {@code mvn -Piana-tables process-classes} to regenerate it after changing the
+ * input.
+ *
+ * The input, given by the {@code iana.protocols.source} property, is either a protocols
+ * file, or a copy of the IANA protocol numbers registry in CSV form (a file ending in
+ * {@code .csv}).  It is not included in the jar.
+ */
+public final class IANAProtocolsGenerator {
+    /** The number of entries added by each method of the generated class */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String HEADER = "/*\n"
+            + " * Copyright (C) 2010 Wayne Meissner\n"
+            + " *\n"
+            + " * This file is part of jnr.\n"
+            + " *\n"
+            + " * Licensed under the Apache License, Version 2.0 (the \"License\");\n"
+            + " * you may not use this file except in compliance with the License.\n"
+            + " * You may obtain a copy of the License at\n"
+            + " *\n"
+            + " *    http://www.apache.org/licenses/LICENSE-2.0\n"
+            + " *\n"
+            + " * Unless required by applicable law or agreed to in writing, software\n"
+            + " * distributed under the License is distributed on an \"AS IS\" BASIS,\n"
+            + " * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.\n"
+            + " * See the License for the specific language governing permissions and\n"
+            + " * limitations under the License.\n"
+            + " */\n";
+
+    private IANAProtocolsGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage: IANAProtocolsGenerator <protocols file> <output file>");
+        }
+
+        File input = new File(args[0]);
+        Writer out = new OutputStreamWriter(new FileOutputStream(args[1]), "UTF-8");
+        try {
+            write(parse(input), input.getName(), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Parses a protocols file, or the IANA registry if the name ends in {@code .csv}
+     */
+    static List<Protocol> parse(File input) throws IOException {
+        return input.getName().endsWith(".csv") ? parseRegistry(input) : parseProtocolsFile(input);
+    }
+
+    static List<Protocol> parseProtocolsFile(File protocolsFile) throws IOException {
+        List<Protocol> protocols = new ArrayList<Protocol>();
+        NetDBParser parser = NetDBParser.open(protocolsFile);
+        try {
+            NetDBTokenizer t = parser.tokenizer();
+            NetDBStringPool pool = new NetDBStringPool();
+            while (t.nextLine()) {
+                int proto = t.parseInt(t.fieldStart(1), t.fieldEnd(1));
+                if (proto < 0) {
+                    throw new IOException("invalid protocols entry for " + t.field(0) + " in " + protocolsFile);
+                }
+                String name = pool.get(t, t.fieldStart(0), t.fieldEnd(0));
+                protocols.add(new Protocol(name, proto, FileServicesDB.parseAliases(t, pool)));
+            }
+
+        } finally {
+            parser.close();
+        }
+
+        return protocols;
+    }
+
+    /**
+     * Parses the IANA registry, as published in protocol-numbers-1.csv.
+     *
+     * Entries without a keyword (unassigned and reserved numbers) are skipped.  The name
+     * of a protocol is its keyword in lower case, and the keyword is its alias.
+     */
+    static List<Protocol> parseRegistry(File csvFile) throws IOException {
+        List<Protocol> protocols = new ArrayList<Protocol>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), "UTF-8"));
+        try {
+            List<String> header = IANAServicesGenerator.readRecord(in);
+            if (header == null) {
+                throw new IOException("empty registry " + csvFile);
+            }
+            if (!header.isEmpty() && header.get(0).startsWith("\ufeff")) {
+                header.set(0, header.get(0).substring(1));
+            }
+            int numberColumn = IANAServicesGenerator.column(header, "Decimal", csvFile);
+            int keywordColumn = IANAServicesGenerator.column(header, "Keyword", csvFile);
+
+            List<String> row;
+            while ((row = IANAServicesGenerator.readRecord(in)) != null) {
+                String number = IANAServicesGenerator.field(row, numberColumn);
+                String keyword = IANAServicesGenerator.field(row, keywordColumn);
+                if (keyword.length() == 0 || number.length() == 0) {
+                    continue;
+                }
+
+                int proto;
+                try {
+                    proto = Integer.parseInt(number);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("invalid number " + number + " for " + keyword + " in " + csvFile);
+                }
+
+                String name = keyword.toLowerCase(Locale.ENGLISH);
+                List<String> aliases = name.equals(keyword)
+                        ? Collections.<String>emptyList() : Collections.singletonList(keyword);
+                protocols.add(new Protocol(name, proto, aliases));
+            }
+
+        } finally {
+            in.close();
+        }
+
+        return protocols;
+    }
+
+    /**
+     * Writes the source of {@link IANAProtocolsTable}
+     *
+     * @param protocols the protocols to add, in order.
+     * @param sourceName the name of the file they were read from.
+     * @param out where to write the source.
+     */
+    static void write(List<Protocol> protocols, String sourceName, Writer out) throws IOException {
+        for (Protocol p : protocols) {
+            boolean valid = IANAServicesGenerator.isValidName(p.getName()) && p.getProto() >= 0 && p.getProto() <= 255;
+            for (String alias : p.getAliases()) {
+                valid &= IANAServicesGenerator.isValidName(alias);
+            }
+            if (!valid) {
+                throw new IOException("invalid protocol " + p.getName() + " " + p.getProto());
+            }
+        }
+
+        // One method per chunk of entries, to stay well below the limit on the size of a method
+        int chunks = (protocols.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        out.write(HEADER);
+        out.write("package jnr.netdb;\n");
+        out.write("\n");
+        out.write("/**\n");
+        out.write(" * The entries of {@link IANAProtocolsDB}, in order.\n");
+        out.write(" *\n");
+        out.write(" * Generated by {@link IANAProtocolsGenerator} from " + sourceName + "; do not edit.\n");
+        out.write(" */\n");
+        out.write("final class IANAProtocolsTable {\n");
+        out.write("    private IANAProtocolsTable() {\n");
+        out.write("    }\n");
+        out.write("\n");
+        out.write("    static void addAll(IANAProtocolsDB.ProtocolDBBuilder builder) {\n");
+        for (int c = 0; c < chunks; c++) {
+            out.write("        add" + c + "(builder);\n");
+        }
+        out.write("    }\n");
+        for (int c = 0; c < chunks; c++) {
+            out.write("\n");
+            out.write("    private static void add" + c + "(IANAProtocolsDB.ProtocolDBBuilder builder) {\n");
+            for (Protocol p : protocols.subList(c * CHUNK_SIZE, Math.min(protocols.size(), (c + 1) * CHUNK_SIZE))) {
+                out.write("        builder.add(\"" + p.getName() + "\", " + p.getProto());
+                for (String alias : p.getAliases()) {
+                    out.write(", \"" + alias + "\"");
+                }
+                out.write(");\n");
+            }
+            out.write("    }\n");
+        }
+        out.write("}\n");
+    }
+}
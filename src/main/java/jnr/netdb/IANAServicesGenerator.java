@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the binary resource that {@link IANAServicesDB} is loaded from.
+ *
+ * The resource is checked in as src/main/resources/jnr/netdb/iana-services.dat, so
+ * builds that do not run Maven (e.g. in an IDE) still have it; run
+ * {@code mvn -Piana-tables process-classes} to regenerate it after changing the
+ * input, which is given by the {@code iana.services.source} property.
+ *
+ * It is not included in the jar, and is only public so that it can be run by the
+ * exec plugin.  The input is either a services file, or a copy of the IANA service
+ * name and port number registry in CSV form (a file ending in {@code .csv}).  The
+ * output is laid out as:
+ *
+ * <pre>
+ *   int     magic, short version
+ *   int     number of strings, then each string in modified UTF-8
+ *   int     number of records, then for each record:
+ *   char    index of the name in the strings
+ *   char    port
+ *   byte    index of the protocol in the strings
+ *   then, for tcp and then udp, the records to index by name:
+ *   int     number of names, then the index (char) of the record for each name
+ * </pre>
+ *
+ * Only tcp and udp records are written, in the same order as in the input.
+ */
+public final class IANAServicesGenerator {
+    private IANAServicesGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage: IANAServicesGenerator <services file> <output file>");
+        }
+
+        File output = new File(args[1]);
+        output.getParentFile().mkdirs();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+        try {
+            write(parse(new File(args[0])), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Parses a services file, or the IANA registry if the name ends in {@code .csv}
+     */
+    static List<Service> parse(File input) throws IOException {
+        return input.getName().endsWith(".csv") ? parseRegistry(input) : parseServicesFile(input);
+    }
+
+    static List<Service> parseServicesFile(File servicesFile) throws IOException {
+        List<Service> services = new ArrayList<Service>();
+        NetDBParser parser = NetDBParser.open(servicesFile);
+        try {
+            NetDBTokenizer t = parser.tokenizer();
+            NetDBStringPool pool = new NetDBStringPool();
+            while (t.nextLine()) {
+                Service s = FileServicesDB.parseServicesEntry(t, pool);
+                if (s == null) {
+                    throw new IOException("invalid services entry for " + t.field(0) + " in " + servicesFile);
+                }
+                services.add(s);
+            }
+
+        } finally {
+            parser.close();
+        }
+
+        return services;
+    }
+
+    /**
+     * Parses the IANA registry, as published in service-names-port-numbers.csv.
+     *
+     * Entries without a name or a port, or for protocols other than tcp and udp, are
+     * skipped, and port ranges are expanded.  The registry lists the main name for a
+     * port first, so the entries are returned in reverse order, for the first one to win.
+     */
+    static List<Service> parseRegistry(File csvFile) throws IOException {
+        List<Service> services = new ArrayList<Service>();
+        List<String> aliases = Collections.emptyList();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), "UTF-8"));
+        try {
+            List<String> header = readRecord(in);
+            if (header == null) {
+                throw new IOException("empty registry " + csvFile);
+            }
+            if (!header.isEmpty() && header.get(0).startsWith("\ufeff")) {
+                header.set(0, header.get(0).substring(1));
+            }
+            int nameColumn = column(header, "Service Name", csvFile);
+            int portColumn = column(header, "Port Number", csvFile);
+            int protoColumn = column(header, "Transport Protocol", csvFile);
+
+            List<String> row;
+            while ((row = readRecord(in)) != null) {
+                String name = field(row, nameColumn);
+                String ports = field(row, portColumn);
+                String proto = field(row, protoColumn).toLowerCase();
+                if (name.length() == 0 || ports.length() == 0 || !("tcp".equals(proto) || "udp".equals(proto))) {
+                    continue;
+                }
+
+                int dash = ports.indexOf('-');
+                int first, last;
+                try {
+                    first = Integer.parseInt(dash < 0 ? ports : ports.substring(0, dash));
+                    last = dash < 0 ? first : Integer.parseInt(ports.substring(dash + 1));
+                } catch (NumberFormatException ex) {
+                    throw new IOException("invalid port " + ports + " for " + name + " in " + csvFile);
+                }
+                if (first < 0 || first > last || last > PortTable.MAX_PORT) {
+                    throw new IOException("invalid port " + ports + " for " + name + " in " + csvFile);
+                }
+
+                for (int port = first; port <= last; port++) {
+                    services.add(new Service(name, port, proto, aliases));
+                }
+            }
+
+        } finally {
+            in.close();
+        }
+
+        Collections.reverse(services);
+        return services;
+    }
+
+    static int column(List<String> header, String name, File csvFile) throws IOException {
+        int idx = header.indexOf(name);
+        if (idx < 0) {
+            throw new IOException("no " + name + " column in " + csvFile);
+        }
+
+        return idx;
+    }
+
+    static String field(List<String> row, int column) {
+        return column < row.size() ? row.get(column).trim() : "";
+    }
+
+    /**
+     * Reads one RFC 4180 record, whose quoted fields may hold commas, quotes and line breaks
+     *
+     * @return the fields of the record, or {@code null} at the end of the input.
+     */
+    static List<String> readRecord(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; c >= 0; c = in.read()) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                in.mark(1);
+                if (in.read() == '"') {
+                    field.append('"');
+                } else {
+                    in.reset();
+                    quoted = false;
+                }
+
+            } else if (c == '"') {
+                quoted = true;
+
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+
+            } else if (c == '\n') {
+                break;
+
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    /**
+     * Writes the resource
+     *
+     * @param input the services to add, in order.
+     * @param out where to write the resource.
+     */
+    static void write(List<Service> input, DataOutputStream out) throws IOException {
+        List<Service> services = new ArrayList<Service>(input.size());
+        for (Service s : input) {
+            if ("tcp".equals(s.proto) || "udp".equals(s.proto)) {
+                if (!isValidName(s.getName()) || s.getPort() < 0 || s.getPort() > PortTable.MAX_PORT) {
+                    throw new IOException("invalid service " + s.getName() + " " + s.getPort() + "/" + s.proto);
+                }
+                services.add(s);
+            }
+        }
+        if (services.size() > Character.MAX_VALUE + 1) {
+            throw new IOException("too many services " + services.size());
+        }
+
+        List<String> strings = new ArrayList<String>();
+        Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+        int[] names = new int[services.size()], protos = new int[services.size()];
+
+        // The few protocols go first, so their indexes fit in a byte
+        for (int i = 0; i < services.size(); i++) {
+            protos[i] = intern(services.get(i).proto, strings, stringIndex, Byte.MAX_VALUE);
+        }
+        for (int i = 0; i < services.size(); i++) {
+            names[i] = intern(services.get(i).getName(), strings, stringIndex, Character.MAX_VALUE);
+        }
+
+        out.writeInt(IANAServicesDB.MAGIC);
+        out.writeShort(IANAServicesDB.VERSION);
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+        out.writeInt(services.size());
+        for (int i = 0; i < services.size(); i++) {
+            out.writeChar(names[i]);
+            out.writeChar(services.get(i).getPort());
+            out.writeByte(protos[i]);
+        }
+
+        writeNameIndex(services, "tcp", out);
+        writeNameIndex(services, "udp", out);
+    }
+
+    private static void writeNameIndex(List<Service> services, String proto, DataOutputStream out) throws IOException {
+        // A later record replaces an earlier one with the same name
+        Map<String, Integer> nameToRecord = new HashMap<String, Integer>();
+        for (int i = 0; i < services.size(); i++) {
+            if (proto.equals(services.get(i).proto)) {
+                nameToRecord.put(services.get(i).getName(), i);
+            }
+        }
+
+        // Written in the order of the records, so the same input always gives the same bytes
+        out.writeInt(nameToRecord.size());
+        for (int i = 0; i < services.size(); i++) {
+            if (proto.equals(services.get(i).proto) && nameToRecord.get(services.get(i).getName()) == i) {
+                out.writeChar(i);
+            }
+        }
+    }
+
+    private static int intern(String s, List<String> strings, Map<String, Integer> stringIndex, int maxIndex) throws IOException {
+        Integer idx = stringIndex.get(s);
+        if (idx == null) {
+            idx = strings.size();
+            if (idx > maxIndex) {
+                throw new IOException("too many strings to index " + s);
+            }
+            strings.add(s);
+            stringIndex.put(s, idx);
+        }
+
+        return idx;
+    }
+
+    /**
+     * Checks that a name is printable ASCII, and can be written in a string literal as is
+     */
+    static boolean isValidName(String s) {
+        if (s.length() == 0 || s.length() > 255) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c > '~' || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of lookup results, with an optional time to live.
+ *
+ * Reads never block.  Inserts happen after a miss in the underlying DB (which is
+ * much slower than taking a lock), so they are serialized.  Once the cache is full,
+ * a new entry is only admitted if it has been looked up more often than the least
+ * frequently used of a small sample of existing entries, which it then replaces.
+ * This keeps a stable hot set from being flushed out by one-off lookups.
+ */
+final class LookupCache<K, V> {
+    private static final int SAMPLE_SIZE = 8;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final FrequencySketch sketch;
+    private final long ttlNanos;
+
+    /** The cached entries, for sampling eviction candidates. Guarded by this */
+    private final Node<K, V>[] slots;
+    private int size, hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long expiresAt;
+        int slot;
+
+        Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize the maximum number of entries.
+     * @param ttlMillis how long entries stay valid for, or 0 if they never expire.
+     */
+    LookupCache(int maximumSize, long ttlMillis) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(maximumSize * 4 / 3 + 1);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.ttlNanos = ttlMillis * 1000000L;
+
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] slots = (Node<K, V>[]) new Node<?, ?>[maximumSize];
+        this.slots = slots;
+    }
+
+    /**
+     * Looks up a cached value.
+     *
+     * @return the cached value, or {@code null} if there is no valid entry for the key.
+     */
+    V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = map.get(key);
+        if (node != null && !isExpired(node, System.nanoTime())) {
+            hits.increment();
+            return node.value;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds a value to the cache, if the admission policy lets it in.
+     */
+    synchronized void put(K key, V value) {
+        long now = System.nanoTime();
+        Node<K, V> node = new Node<K, V>(key, value, ttlNanos > 0 ? now + ttlNanos : 0);
+
+        Node<K, V> old = map.get(key);
+        if (old != null) {
+            replace(old, node);
+            return;
+        }
+
+        if (size < slots.length) {
+            node.slot = size;
+            slots[size++] = node;
+            map.put(key, node);
+            return;
+        }
+
+        // Pick an expired entry, or else the least frequently used one, from the next few slots
+        Node<K, V> victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < Math.min(SAMPLE_SIZE, slots.length); i++) {
+            Node<K, V> candidate = slots[hand];
+            hand = (hand + 1) % slots.length;
+            if (isExpired(candidate, now)) {
+                victim = candidate;
+                victimFrequency = -1;
+                break;
+            }
+
+            int frequency = sketch.frequency(candidate.key);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+
+        if (sketch.frequency(key) > victimFrequency) {
+            replace(victim, node);
+            evictions.increment();
+        }
+    }
+
+    private void replace(Node<K, V> old, Node<K, V> node) {
+        if (!old.key.equals(node.key)) {
+            map.remove(old.key);
+        }
+        node.slot = old.slot;
+        slots[old.slot] = node;
+        map.put(node.key, node);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return ttlNanos > 0 && now - node.expiresAt >= 0;
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), map.size());
+    }
+}
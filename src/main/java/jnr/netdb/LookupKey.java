@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+/**
+ * Cache key for a lookup by name or by number, with an optional protocol.
+ */
+final class LookupKey {
+    private final String name;
+    private final int number;
+    private final String proto;
+
+    private LookupKey(String name, int number, String proto) {
+        this.name = name;
+        this.number = number;
+        this.proto = proto;
+    }
+
+    static LookupKey byName(String name, String proto) {
+        return new LookupKey(name, -1, proto);
+    }
+
+    static LookupKey byNumber(int number, String proto) {
+        return new LookupKey(null, number, proto);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LookupKey)) {
+            return false;
+        }
+
+        LookupKey k = (LookupKey) o;
+        return number == k.number
+                && (name != null ? name.equals(k.name) : k.name == null)
+                && (proto != null ? proto.equals(k.proto) : k.proto == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = name != null ? name.hashCode() : number;
+        return 31 * h + (proto != null ? proto.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return (name != null ? name : String.valueOf(number)) + "/" + proto;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only services DB which answers lookups directly from a binary index,
+ * usually a memory mapped file.
+ *
+ * Nothing is decoded up front: the index holds open addressing hash tables keyed
+ * on (name, proto), name, (port, proto) and port, which are probed in place, and a
+ * {@code Service} is only created when a lookup finds one.  When the index is a
+ * mapped file, its pages are shared by every process that maps it, and the
+ * garbage collector sees none of it.
+ *
+ * Lookups follow the same rules as {@link ServicesIndex}: the first service (in
+ * the order they were written) whose name or alias matches wins, and a proto of
+ * {@code null} matches any protocol.  The index is laid out as:
+ *
+ * <pre>
+ *   int     number of services, offset of the first service
+ *   int     offset and number of slots of the (name, proto), name, (port, proto) and port tables
+ *   then the strings, each a char length followed by UTF-8 bytes
+ *   then the services, each:
+ *   int     offset of the name
+ *   char    port
+ *   int     offset of the protocol
+ *   char    number of aliases, then the offset (int) of each alias
+ *   then the name tables, each slot an int hash, key offset and service offset
+ *   then the port tables, each slot an int hash and service offset
+ * </pre>
+ *
+ * All offsets are from the start of the buffer, and a service offset of zero
+ * marks an empty slot.  Tables have a power of two number of slots, at least
+ * twice the number of keys, and collisions are resolved by linear probing.
+ */
+final class MappedServicesDB implements ServicesDB {
+    private static final int DIRECTORY_SIZE = 10 * 4;
+    private static final int NAME_SLOT_SIZE = 12;
+    private static final int PORT_SLOT_SIZE = 8;
+    private static final int EMPTY = 0;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final List<String> emptyAliases = Collections.emptyList();
+
+    private final ByteBuffer buf;
+    private final int serviceCount, servicesOffset;
+    private final Table byNameAndProto, byName, byPortAndProto, byPort;
+
+    /**
+     * An open addressing hash table in the buffer
+     */
+    private static final class Table {
+        final int offset, mask;
+
+        Table(int offset, int slots) {
+            this.offset = offset;
+            this.mask = slots - 1;
+        }
+    }
+
+    /**
+     * Creates a DB over an index.
+     *
+     * @param buf the buffer holding the index, which must not change while the DB is used.
+     * @param offset the offset of the index in {@code buf}.
+     * @throws IllegalArgumentException if the index is malformed.
+     */
+    MappedServicesDB(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        this.serviceCount = buf.getInt(offset);
+        this.servicesOffset = buf.getInt(offset + 4);
+        this.byNameAndProto = table(buf, offset + 8, NAME_SLOT_SIZE);
+        this.byName = table(buf, offset + 16, NAME_SLOT_SIZE);
+        this.byPortAndProto = table(buf, offset + 24, PORT_SLOT_SIZE);
+        this.byPort = table(buf, offset + 32, PORT_SLOT_SIZE);
+
+        if (serviceCount < 0 || servicesOffset <= 0 || servicesOffset > buf.limit()) {
+            throw new IllegalArgumentException("malformed services index");
+        }
+    }
+
+    private static Table table(ByteBuffer buf, int directoryEntry, int slotSize) {
+        int offset = buf.getInt(directoryEntry), slots = buf.getInt(directoryEntry + 4);
+        if (slots <= 0 || (slots & (slots - 1)) != 0 || offset <= 0 || (long) offset + (long) slots * slotSize > buf.limit()) {
+            throw new IllegalArgumentException("malformed services index");
+        }
+
+        return new Table(offset, slots);
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        if (name == null) {
+            return null;
+        }
+
+        Table t = proto != null ? byNameAndProto : byName;
+        int h = nameHash(name, proto);
+        for (int i = spread(h) & t.mask; ; i = (i + 1) & t.mask) {
+            int slot = t.offset + i * NAME_SLOT_SIZE;
+            int service = buf.getInt(slot + 8);
+            if (service == EMPTY) {
+                return null;
+            }
+
+            if (buf.getInt(slot) == h && matches(buf.getInt(slot + 4), name)
+                    && (proto == null || matches(buf.getInt(service + 6), proto))) {
+                return service(service);
+            }
+        }
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        if (port == null) {
+            return null;
+        }
+
+        Table t = proto != null ? byPortAndProto : byPort;
+        int h = portHash(port, proto);
+        for (int i = spread(h) & t.mask; ; i = (i + 1) & t.mask) {
+            int slot = t.offset + i * PORT_SLOT_SIZE;
+            int service = buf.getInt(slot + 4);
+            if (service == EMPTY) {
+                return null;
+            }
+
+            if (buf.getInt(slot) == h && buf.getChar(service + 4) == port
+                    && (proto == null || matches(buf.getInt(service + 6), proto))) {
+                return service(service);
+            }
+        }
+    }
+
+    public Collection<Service> getAllServices() {
+        List<Service> services = new ArrayList<Service>(serviceCount);
+        for (int i = 0, offset = servicesOffset; i < serviceCount; i++) {
+            services.add(service(offset));
+            offset += 12 + 4 * buf.getChar(offset + 10);
+        }
+
+        return Collections.unmodifiableList(services);
+    }
+
+    final boolean isEmpty() {
+        return serviceCount == 0;
+    }
+
+    /**
+     * Decodes the service at an offset
+     */
+    private Service service(int offset) {
+        int aliasCount = buf.getChar(offset + 10);
+        List<String> aliases = emptyAliases;
+        if (aliasCount > 0) {
+            aliases = new ArrayList<String>(aliasCount);
+            for (int i = 0; i < aliasCount; i++) {
+                aliases.add(string(buf.getInt(offset + 12 + 4 * i)));
+            }
+            aliases = Collections.unmodifiableList(aliases);
+        }
+
+        return new Service(string(buf.getInt(offset)), buf.getChar(offset + 4), string(buf.getInt(offset + 6)), aliases);
+    }
+
+    private String string(int offset) {
+        byte[] bytes = new byte[buf.getChar(offset)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(offset + 2 + i);
+        }
+
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Compares the string at an offset with {@code s}, without decoding it if {@code s} is ASCII
+     */
+    private boolean matches(int offset, String s) {
+        int length = buf.getChar(offset);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                return string(offset).equals(s);
+            }
+            if (i >= length || buf.get(offset + 2 + i) != c) {
+                return false;
+            }
+        }
+
+        return length == s.length();
+    }
+
+    private static int nameHash(String name, String proto) {
+        return name.hashCode() * 31 + (proto != null ? proto.hashCode() : 0);
+    }
+
+    private static int portHash(int port, String proto) {
+        return port * 31 + (proto != null ? proto.hashCode() : 0);
+    }
+
+    private static int spread(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Writes the index of a list of services.
+     *
+     * @param services the services, in lookup order.
+     * @param base the offset the index will be at, once it is in a buffer.
+     * @return the index.
+     * @throws IOException if a service cannot be indexed.
+     */
+    static byte[] write(Collection<Service> services, int base) throws IOException {
+        // Lay out the strings, then the services, then the tables
+        Map<String, Integer> stringOffsets = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        int offset = base + DIRECTORY_SIZE;
+        for (Service s : services) {
+            offset = intern(s.getName(), offset, strings, stringOffsets);
+            offset = intern(s.proto, offset, strings, stringOffsets);
+            for (String alias : s.getAliases()) {
+                offset = intern(alias, offset, strings, stringOffsets);
+            }
+        }
+
+        int servicesOffset = offset;
+        int[] serviceOffsets = new int[services.size()];
+        int i = 0;
+        for (Service s : services) {
+            if (s.getPort() < 0 || s.getPort() > PortTable.MAX_PORT || s.getAliases().size() > Character.MAX_VALUE) {
+                throw new IOException("cannot index " + s);
+            }
+            serviceOffsets[i++] = offset;
+            offset += 12 + 4 * s.getAliases().size();
+        }
+
+        // The first service with a key wins, as with a linear scan
+        NameKeys byNameAndProto = new NameKeys(), byName = new NameKeys();
+        PortKeys byPortAndProto = new PortKeys(), byPort = new PortKeys();
+        i = 0;
+        for (Service s : services) {
+            int serviceOffset = serviceOffsets[i++];
+            byNameAndProto.add(s.getName(), s.proto, serviceOffset);
+            byName.add(s.getName(), null, serviceOffset);
+            for (String alias : s.getAliases()) {
+                byNameAndProto.add(alias, s.proto, serviceOffset);
+                byName.add(alias, null, serviceOffset);
+            }
+            byPortAndProto.add(s.getPort(), s.proto, serviceOffset);
+            byPort.add(s.getPort(), null, serviceOffset);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(services.size());
+        out.writeInt(servicesOffset);
+        offset = byNameAndProto.writeDirectory(out, offset);
+        offset = byName.writeDirectory(out, offset);
+        offset = byPortAndProto.writeDirectory(out, offset);
+        byPort.writeDirectory(out, offset);
+
+        for (String s : strings) {
+            byte[] utf8 = s.getBytes(UTF8);
+            out.writeChar(utf8.length);
+            out.write(utf8);
+        }
+
+        for (Service s : services) {
+            out.writeInt(stringOffsets.get(s.getName()));
+            out.writeChar(s.getPort());
+            out.writeInt(stringOffsets.get(s.proto));
+            out.writeChar(s.getAliases().size());
+            for (String alias : s.getAliases()) {
+                out.writeInt(stringOffsets.get(alias));
+            }
+        }
+
+        byNameAndProto.write(out, stringOffsets);
+        byName.write(out, stringOffsets);
+        byPortAndProto.write(out);
+        byPort.write(out);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    private static int intern(String s, int offset, List<String> strings, Map<String, Integer> stringOffsets) throws IOException {
+        if (stringOffsets.containsKey(s)) {
+            return offset;
+        }
+
+        int length = s.getBytes(UTF8).length;
+        if (length > Character.MAX_VALUE) {
+            throw new IOException("string too long");
+        }
+        stringOffsets.put(s, offset);
+        strings.add(s);
+
+        return offset + 2 + length;
+    }
+
+    private static int slotsFor(int keys) {
+        return Integer.highestOneBit(Math.max(1, keys) * 2 - 1) << 1;
+    }
+
+    /**
+     * Collects the keys of a name table, then writes it
+     */
+    private static final class NameKeys {
+        private final Set<String> seen = new HashSet<String>();
+        private final List<String> names = new ArrayList<String>();
+        private final List<String> protos = new ArrayList<String>();
+        private final List<Integer> serviceOffsets = new ArrayList<Integer>();
+
+        void add(String name, String proto, int serviceOffset) {
+            if (seen.add(proto != null ? name + '/' + proto : name)) {
+                names.add(name);
+                protos.add(proto);
+                serviceOffsets.add(serviceOffset);
+            }
+        }
+
+        int writeDirectory(DataOutputStream out, int offset) throws IOException {
+            out.writeInt(offset);
+            out.writeInt(slotsFor(names.size()));
+            return offset + slotsFor(names.size()) * NAME_SLOT_SIZE;
+        }
+
+        void write(DataOutputStream out, Map<String, Integer> stringOffsets) throws IOException {
+            int slots = slotsFor(names.size());
+            int[] hashes = new int[slots], keys = new int[slots], services = new int[slots];
+            for (int i = 0; i < names.size(); i++) {
+                int h = nameHash(names.get(i), protos.get(i));
+                int slot = spread(h) & (slots - 1);
+                while (services[slot] != EMPTY) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                hashes[slot] = h;
+                keys[slot] = stringOffsets.get(names.get(i));
+                services[slot] = serviceOffsets.get(i);
+            }
+
+            for (int slot = 0; slot < slots; slot++) {
+                out.writeInt(hashes[slot]);
+                out.writeInt(keys[slot]);
+                out.writeInt(services[slot]);
+            }
+        }
+    }
+
+    /**
+     * Collects the keys of a port table, then writes it
+     */
+    private static final class PortKeys {
+        private final Set<String> seen = new HashSet<String>();
+        private final List<Integer> hashes = new ArrayList<Integer>();
+        private final List<Integer> serviceOffsets = new ArrayList<Integer>();
+
+        void add(int port, String proto, int serviceOffset) {
+            if (seen.add(proto != null ? port + "/" + proto : String.valueOf(port))) {
+                hashes.add(portHash(port, proto));
+                serviceOffsets.add(serviceOffset);
+            }
+        }
+
+        int writeDirectory(DataOutputStream out, int offset) throws IOException {
+            out.writeInt(offset);
+            out.writeInt(slotsFor(hashes.size()));
+            return offset + slotsFor(hashes.size()) * PORT_SLOT_SIZE;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            int slots = slotsFor(hashes.size());
+            int[] slotHashes = new int[slots], services = new int[slots];
+            for (int i = 0; i < hashes.size(); i++) {
+                int h = hashes.get(i);
+                int slot = spread(h) & (slots - 1);
+                while (services[slot] != EMPTY) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                slotHashes[slot] = h;
+                services[slot] = serviceOffsets.get(i);
+            }
+
+            for (int slot = 0; slot < slots; slot++) {
+                out.writeInt(slotHashes[slot]);
+                out.writeInt(services[slot]);
+            }
+        }
+    }
+}
@@ -38,6 +38,12 @@ import static jnr.ffi.Platform.OS.*;
  *
  */
 abstract class NativeProtocolsDB implements ProtocolsDB {
+    /**
+     * Held while enumerating the protocols database, since the position in it is
+     * process wide, and shared by every instance.  The non-reentrant lookups hold
+     * it too, since they share static storage with the enumeration.
+     */
+    static final Object ENUMERATION_LOCK = new Object();
 
     public static final NativeProtocolsDB getInstance() {
         return SingletonHolder.INSTANCE;
@@ -132,25 +138,33 @@ abstract class NativeProtocolsDB implements ProtocolsDB {
             this.lib = lib;
         }
 
-        public synchronized Protocol getProtocolByName(String name) {
-            return protocolFromNative(lib.getprotobyname(name));
+        // getprotobyname, getprotobynumber and getprotoent share static storage in the
+        // C library, so every instance must use the same lock.
+        public Protocol getProtocolByName(String name) {
+            synchronized (ENUMERATION_LOCK) {
+                return protocolFromNative(lib.getprotobyname(name));
+            }
         }
 
-        public synchronized Protocol getProtocolByNumber(Integer proto) {
-            return protocolFromNative(lib.getprotobynumber(proto));
+        public Protocol getProtocolByNumber(Integer proto) {
+            synchronized (ENUMERATION_LOCK) {
+                return protocolFromNative(lib.getprotobynumber(proto));
+            }
         }
 
-        public synchronized Collection<Protocol> getAllProtocols() {
+        public Collection<Protocol> getAllProtocols() {
             UnixProtoent p;
             List<Protocol> allProtocols = new ArrayList<Protocol>();
 
-            lib.setprotoent(0);
-            try {
-                while ((p = lib.getprotoent()) != null) {
-                    allProtocols.add(protocolFromNative(p));
+            synchronized (ENUMERATION_LOCK) {
+                lib.setprotoent(0);
+                try {
+                    while ((p = lib.getprotoent()) != null) {
+                        allProtocols.add(protocolFromNative(p));
+                    }
+                } finally {
+                    lib.endprotoent();
                 }
-            } finally {
-                lib.endprotoent();
             }
 
             return allProtocols;
@@ -158,51 +172,83 @@ abstract class NativeProtocolsDB implements ProtocolsDB {
     }
 
     static final class LinuxNativeProtocolsDB extends NativeProtocolsDB {
-        private static final int BUFLEN = 4096;
-        private final Runtime runtime;
-        private final Pointer buf;
         private final LinuxLibProto lib;
+        private final ThreadLocal<Scratch> scratch;
+
+        /**
+         * Per thread native memory for lookups
+         */
+        private static final class Scratch extends NativeScratch {
+            final UnixProtoent protoent;
 
+            Scratch(Runtime runtime, int size) {
+                super(runtime, size, Protocol.nativeBufferHighWaterMark);
+                this.protoent = new UnixProtoent(runtime);
+            }
+        }
 
         LinuxNativeProtocolsDB(LinuxLibProto lib) {
+            this(lib, NativeScratch.BUFLEN);
+        }
+
+        LinuxNativeProtocolsDB(LinuxLibProto lib, final int initialBufferSize) {
             this.lib = lib;
-            this.runtime = Library.getRuntime(lib);
-            this.buf = Memory.allocateDirect(runtime, BUFLEN);
+            final Runtime runtime = Library.getRuntime(lib);
+            this.scratch = new ThreadLocal<Scratch>() {
+                @Override
+                protected Scratch initialValue() {
+                    return new Scratch(runtime, Math.max(initialBufferSize, Protocol.nativeBufferHighWaterMark.get()));
+                }
+            };
         }
 
-        public synchronized Protocol getProtocolByName(String name) {
-            UnixProtoent protoent = new UnixProtoent(runtime);
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            if (lib.getprotobyname_r(name, protoent, buf, new NativeLong(BUFLEN), result) == 0) {
-                return result.getPointer(0) != null ? protocolFromNative(protoent) : null;
+        public Protocol getProtocolByName(String name) {
+            Scratch s = scratch.get();
+            int rc;
+            do {
+                rc = lib.getprotobyname_r(name, s.protoent, s.buf, s.buflen, s.result);
+            } while (s.retry(rc));
+
+            if (rc == 0) {
+                return s.found() ? protocolFromNative(s.protoent) : null;
             }
 
             throw new RuntimeException("getprotobyname_r failed");
         }
 
-        public synchronized Protocol getProtocolByNumber(Integer number) {
-            UnixProtoent protoent = new UnixProtoent(runtime);
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            if (lib.getprotobynumber_r(number, protoent, buf, new NativeLong(BUFLEN), result) == 0) {
-                return result.getPointer(0) != null ? protocolFromNative(protoent) : null;
+        public Protocol getProtocolByNumber(Integer number) {
+            Scratch s = scratch.get();
+            int rc;
+            do {
+                rc = lib.getprotobynumber_r(number, s.protoent, s.buf, s.buflen, s.result);
+            } while (s.retry(rc));
+
+            if (rc == 0) {
+                return s.found() ? protocolFromNative(s.protoent) : null;
             }
 
             throw new RuntimeException("getprotobynumber_r failed");
         }
 
-        public synchronized Collection<Protocol> getAllProtocols() {
-            UnixProtoent p = new UnixProtoent(runtime);
+        // getprotoent_r is reentrant, but the position in the database is process wide,
+        // so only one thread at a time, using any instance, can enumerate it.
+        public Collection<Protocol> getAllProtocols() {
+            Scratch s = scratch.get();
             List<Protocol> allProtocols = new ArrayList<Protocol>();
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            NativeLong buflen = new NativeLong(BUFLEN);
 
-            lib.setprotoent(0);
-            try {
-                while (lib.getprotoent_r(p, buf, buflen, result) == 0 && result.getPointer(0) != null) {
-                    allProtocols.add(protocolFromNative(p));
+            synchronized (ENUMERATION_LOCK) {
+                lib.setprotoent(0);
+                try {
+                    int rc;
+                    while ((rc = lib.getprotoent_r(s.protoent, s.buf, s.buflen, s.result)) == 0 && s.found()
+                            || s.retry(rc)) {
+                        if (rc == 0) {
+                            allProtocols.add(protocolFromNative(s.protoent));
+                        }
+                    }
+                } finally {
+                    lib.endprotoent();
                 }
-            } finally {
-                lib.endprotoent();
             }
 
             return allProtocols;
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jnr.ffi.Memory;
+import jnr.ffi.NativeLong;
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+
+/**
+ * Native memory passed to the reentrant getserv*_r / getproto*_r functions.
+ *
+ * Instances are not thread safe; each thread uses its own, so concurrent
+ * lookups neither share a buffer nor need a lock.
+ *
+ * If an entry does not fit in the buffer (e.g. it has a lot of aliases), the
+ * native function fails with ERANGE, and the buffer is grown and the call
+ * retried.  The largest size needed so far is remembered, separately for
+ * services and protocols, and new buffers start at that size.  It is reported
+ * by {@link Service#getNativeBufferHighWaterMark()} and
+ * {@link Protocol#getNativeBufferHighWaterMark()}.
+ */
+class NativeScratch {
+    static final int BUFLEN = 4096;
+    static final int MAX_BUFLEN = 1024 * 1024;
+
+    /** Linux errno value returned by the *_r functions when the buffer is too small */
+    static final int ERANGE = 34;
+
+    private final Runtime runtime;
+    private final AtomicInteger highWaterMark;
+
+    /** Holds the strings and alias array the result struct points to */
+    Pointer buf;
+    NativeLong buflen;
+
+    /** Set by the native function to point to the result struct, or NULL if not found */
+    final Pointer result;
+
+    /**
+     * @param highWaterMark where the largest size needed is recorded.
+     */
+    NativeScratch(Runtime runtime, int size, AtomicInteger highWaterMark) {
+        this.runtime = runtime;
+        this.highWaterMark = highWaterMark;
+        this.buf = Memory.allocateDirect(runtime, size);
+        this.buflen = new NativeLong(size);
+        this.result = Memory.allocateDirect(runtime, runtime.addressSize());
+    }
+
+    final boolean found() {
+        return result.getPointer(0) != null;
+    }
+
+    /**
+     * Checks if a native call should be retried, growing the buffer if it was too small.
+     *
+     * @param rc the return value of the native call.
+     * @return {@code true} if the buffer was grown and the call should be retried.
+     */
+    final boolean retry(int rc) {
+        int size = buflen.intValue();
+        if (rc != ERANGE || size >= MAX_BUFLEN) {
+            return false;
+        }
+
+        size = Math.min(size * 2, MAX_BUFLEN);
+        buf = Memory.allocateDirect(runtime, size);
+        buflen = new NativeLong(size);
+
+        int max;
+        while ((max = highWaterMark.get()) < size) {
+            if (highWaterMark.compareAndSet(max, size)) {
+                Logger.getLogger(NativeScratch.class.getName()).log(Level.FINE,
+                        "native netdb buffer size increased to {0} bytes", size);
+                break;
+            }
+        }
+
+        return true;
+    }
+}
@@ -39,6 +39,11 @@ import static jnr.ffi.Platform.OS.*;
  *
  */
 abstract class NativeServicesDB implements ServicesDB {
+    /**
+     * Held while enumerating the services database, since the position in it is
+     * process wide, and shared by every instance
+     */
+    static final Object ENUMERATION_LOCK = new Object();
 
     protected final LibServices lib;
 
@@ -176,12 +181,14 @@ abstract class NativeServicesDB implements ServicesDB {
             UnixServent s;
             List<Service> allServices = new ArrayList<Service>();
 
-            try {
-                while ((s = lib.getservent()) != null) {
-                    allServices.add(serviceFromNative(s));
+            synchronized (ENUMERATION_LOCK) {
+                try {
+                    while ((s = lib.getservent()) != null) {
+                        allServices.add(serviceFromNative(s));
+                    }
+                } finally {
+                    lib.endservent();
                 }
-            } finally {
-                lib.endservent();
             }
 
             return allServices;
@@ -198,50 +205,83 @@ abstract class NativeServicesDB implements ServicesDB {
     }
 
     static final class LinuxServicesDB extends NativeServicesDB {
-        private static final int BUFLEN = 4096;
         private final LinuxLibServices lib;
-        private final Runtime runtime;
-        private final Pointer buf;
+        private final ThreadLocal<Scratch> scratch;
+
+        /**
+         * Per thread native memory for lookups
+         */
+        private static final class Scratch extends NativeScratch {
+            final UnixServent servent;
+
+            Scratch(Runtime runtime, int size) {
+                super(runtime, size, Service.nativeBufferHighWaterMark);
+                this.servent = new UnixServent(runtime);
+            }
+        }
 
         LinuxServicesDB(LibServices lib) {
+            this(lib, NativeScratch.BUFLEN);
+        }
+
+        LinuxServicesDB(LibServices lib, final int initialBufferSize) {
             super(lib);
             this.lib = (LinuxLibServices) lib;
-            this.runtime = Library.getRuntime(lib);
-            this.buf = Memory.allocateDirect(runtime, BUFLEN);
+            final Runtime runtime = Library.getRuntime(lib);
+            this.scratch = new ThreadLocal<Scratch>() {
+                @Override
+                protected Scratch initialValue() {
+                    return new Scratch(runtime, Math.max(initialBufferSize, Service.nativeBufferHighWaterMark.get()));
+                }
+            };
         }
 
-        public synchronized Service getServiceByName(String name, String proto) {
-            UnixServent servent = new UnixServent(runtime);
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            if (lib.getservbyname_r(name, proto, servent, buf, new NativeLong(BUFLEN), result) == 0) {
-                return result.getPointer(0) != null ? serviceFromNative(servent) : null;
+        public Service getServiceByName(String name, String proto) {
+            Scratch s = scratch.get();
+            int rc;
+            do {
+                rc = lib.getservbyname_r(name, proto, s.servent, s.buf, s.buflen, s.result);
+            } while (s.retry(rc));
+
+            if (rc == 0) {
+                return s.found() ? serviceFromNative(s.servent) : null;
             }
 
             throw new RuntimeException("getservbyname_r failed");
         }
 
-        public synchronized Service getServiceByPort(Integer port, String proto) {
-            UnixServent servent = new UnixServent(runtime);
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            if (lib.getservbyport_r(htons(port), proto, servent, buf, new NativeLong(BUFLEN), result) == 0) {
-                return result.getPointer(0) != null ? serviceFromNative(servent) : null;
+        public Service getServiceByPort(Integer port, String proto) {
+            Scratch s = scratch.get();
+            int rc;
+            do {
+                rc = lib.getservbyport_r(htons(port), proto, s.servent, s.buf, s.buflen, s.result);
+            } while (s.retry(rc));
+
+            if (rc == 0) {
+                return s.found() ? serviceFromNative(s.servent) : null;
             }
 
             throw new RuntimeException("getservbyport_r failed");
         }
 
-        public synchronized Collection<Service> getAllServices() {
-            UnixServent s = new UnixServent(runtime);
+        // getservent_r is reentrant, but the position in the database is process wide,
+        // so only one thread at a time, using any instance, can enumerate it.
+        public Collection<Service> getAllServices() {
+            Scratch s = scratch.get();
             List<Service> allServices = new ArrayList<Service>();
-            Pointer result = Memory.allocateDirect(runtime, runtime.addressSize());
-            NativeLong buflen = new NativeLong(BUFLEN);
 
-            try {
-                while (lib.getservent_r(s, buf, buflen, result) == 0 && result.getPointer(0) != null) {
-                    allServices.add(serviceFromNative(s));
+            synchronized (ENUMERATION_LOCK) {
+                try {
+                    int rc;
+                    while ((rc = lib.getservent_r(s.servent, s.buf, s.buflen, s.result)) == 0 && s.found()
+                            || s.retry(rc)) {
+                        if (rc == 0) {
+                            allServices.add(serviceFromNative(s.servent));
+                        }
+                    }
+                } finally {
+                    lib.endservent();
                 }
-            } finally {
-                lib.endservent();
             }
 
             return allServices;
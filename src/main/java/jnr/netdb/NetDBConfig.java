@@ -0,0 +1,656 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configures how {@link Service} and {@link Protocol} look entries up.
+ *
+ * Each setting defaults to the matching jnr.netdb.* system property.  A
+ * configuration only takes effect if it is installed before the first lookup:
+ *
+ * <pre>
+ *   NetDBConfig.install(NetDBConfig.builder()
+ *           .servicesBackends(NetDBConfig.Backend.FILE)
+ *           .servicesFile(new File("/opt/app/services"))
+ *           .cache(1024, 0)
+ *           .build());
+ * </pre>
+ */
+public final class NetDBConfig {
+    private static NetDBConfig current;
+    private static boolean used;
+
+    /**
+     * The places entries can be looked up in
+     */
+    public enum Backend {
+        /** The C library functions, getservbyname(3) and friends */
+        NATIVE,
+
+        /** The services or protocols file, parsed directly */
+        FILE,
+
+        /** The built-in tables of IANA assignments */
+        IANA
+    }
+
+    private static final List<Backend> DEFAULT_BACKENDS
+            = Collections.unmodifiableList(Arrays.asList(Backend.NATIVE, Backend.FILE, Backend.IANA));
+
+    private final boolean pureJava;
+    private final List<Backend> servicesBackends;
+    private final List<Backend> protocolsBackends;
+    private final File servicesFile;
+    private final File protocolsFile;
+    private final boolean preload;
+    private final boolean nsswitch;
+    private final boolean nativeAsync;
+    private final boolean adaptive;
+    private final long adaptiveBudgetMillis;
+    private final File snapshotFile;
+    private final boolean watch;
+    private final long watchIntervalMillis;
+    private final boolean fileLowMemory;
+    private final int cacheMaxSize;
+    private final long cacheTtlMillis;
+    private final int negativeCacheMaxSize;
+    private final long negativeCacheTtlMillis;
+
+    private NetDBConfig(Builder builder) {
+        this.pureJava = builder.pureJava;
+        this.servicesBackends = backends(builder.servicesBackends, pureJava);
+        this.protocolsBackends = backends(builder.protocolsBackends, pureJava);
+        this.servicesFile = builder.servicesFile;
+        this.protocolsFile = builder.protocolsFile;
+        this.preload = builder.preload;
+        this.nsswitch = builder.nsswitch;
+        this.nativeAsync = builder.nativeAsync;
+        this.adaptive = builder.adaptive;
+        this.adaptiveBudgetMillis = builder.adaptiveBudgetMillis;
+        this.snapshotFile = builder.snapshotFile;
+        this.watch = builder.watch;
+        this.watchIntervalMillis = builder.watchIntervalMillis;
+        this.fileLowMemory = builder.fileLowMemory;
+        this.cacheMaxSize = builder.cacheMaxSize;
+        this.cacheTtlMillis = builder.cacheTtlMillis;
+        this.negativeCacheMaxSize = builder.negativeCacheMaxSize;
+        this.negativeCacheTtlMillis = builder.negativeCacheTtlMillis;
+    }
+
+    private static List<Backend> backends(List<Backend> backends, boolean pureJava) {
+        List<Backend> list = new ArrayList<Backend>(backends);
+        if (pureJava) {
+            list.remove(Backend.NATIVE);
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Creates a builder, with every setting taken from the system properties.
+     *
+     * @return a new {@code Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Makes a configuration the one used for all lookups.
+     *
+     * @param config the configuration to use.
+     * @throws IllegalStateException if a lookup has already been made.
+     */
+    public static synchronized void install(NetDBConfig config) {
+        if (config == null) {
+            throw new NullPointerException("config");
+        }
+        if (used) {
+            throw new IllegalStateException("a configuration must be installed before the first lookup");
+        }
+
+        current = config;
+    }
+
+    /**
+     * Returns the configuration lookups use, and prevents any other from being installed
+     */
+    static synchronized NetDBConfig current() {
+        if (current == null) {
+            current = builder().build();
+        }
+        used = true;
+
+        return current;
+    }
+
+    /**
+     * Whether entries are only looked up in Java, from the services and protocols
+     * files or the built-in tables, without the native functions.
+     *
+     * @return {@code true} if the native functions are never used.
+     */
+    public boolean isPureJava() {
+        return pureJava;
+    }
+
+    /**
+     * The backends services are looked up in, in the order they are tried.  The
+     * first one that can be used answers all lookups.
+     *
+     * @return the backends, never including {@link Backend#NATIVE} in pure-Java mode.
+     */
+    public List<Backend> getServicesBackends() {
+        return servicesBackends;
+    }
+
+    /**
+     * The backends protocols are looked up in, in the order they are tried.  The
+     * first one that can be used answers all lookups.
+     *
+     * @return the backends, never including {@link Backend#NATIVE} in pure-Java mode.
+     */
+    public List<Backend> getProtocolsBackends() {
+        return protocolsBackends;
+    }
+
+    /**
+     * The services file the {@link Backend#FILE} backend parses.
+     *
+     * @return the services file.
+     */
+    public File getServicesFile() {
+        return servicesFile;
+    }
+
+    /**
+     * The protocols file the {@link Backend#FILE} backend parses.
+     *
+     * @return the protocols file.
+     */
+    public File getProtocolsFile() {
+        return protocolsFile;
+    }
+
+    /**
+     * Whether the native DBs are enumerated once, and all lookups answered from memory.
+     *
+     * @return {@code true} if the native DBs are preloaded.
+     */
+    public boolean isPreload() {
+        return preload;
+    }
+
+    /**
+     * Whether the {@link Backend#NATIVE} backend parses the services or protocols
+     * file itself, instead of calling the C library, when /etc/nsswitch.conf lists
+     * {@code files} as the only source of that database.
+     *
+     * @return {@code true} if nsswitch.conf is checked.
+     */
+    public boolean isNsSwitch() {
+        return nsswitch;
+    }
+
+    /**
+     * Whether the native functions are bound on a background thread, while lookups
+     * are answered from the next backend.
+     *
+     * @return {@code true} if the native functions are bound in the background.
+     */
+    public boolean isNativeAsync() {
+        return nativeAsync;
+    }
+
+    /**
+     * Whether every usable backend is opened and timed on a sample of lookups, and
+     * the fastest one that agrees with the first is used, instead of the first.
+     *
+     * @return {@code true} if the backend is chosen adaptively.
+     * @see Service#getBackendSelection()
+     * @see Protocol#getBackendSelection()
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Roughly how long the backends of each DB are timed for, when the backend is
+     * chosen adaptively.  Each usable backend gets an equal share of it, and is left
+     * out if it cannot answer the sample of lookups in that time.
+     *
+     * @return the time budget in milliseconds.
+     */
+    public long getAdaptiveBudgetMillis() {
+        return adaptiveBudgetMillis;
+    }
+
+    /**
+     * The file the resolved services DB is saved to, and loaded from by later JVMs.
+     *
+     * @return the snapshot file, or {@code null} if snapshots are not used.
+     */
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Whether the services and protocols files parsed by Java are reloaded when they change.
+     *
+     * @return {@code true} if the files are watched.
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * How often watched files are checked for changes, besides when the file system
+     * reports one.
+     *
+     * @return the poll interval in milliseconds.
+     */
+    public long getWatchIntervalMillis() {
+        return watchIntervalMillis;
+    }
+
+    /**
+     * Whether the services file is read on each lookup, keeping only tables of line
+     * offsets in memory, instead of being indexed in memory.
+     *
+     * @return {@code true} if the services file is read on each lookup.
+     */
+    public boolean isFileLowMemory() {
+        return fileLowMemory;
+    }
+
+    /**
+     * The maximum number of found entries cached in front of the backends.
+     *
+     * @return the cache size, or 0 if found entries are not cached.
+     */
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    /**
+     * How long a found entry stays cached.
+     *
+     * @return the time to live in milliseconds, or 0 if entries do not expire.
+     */
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    /**
+     * The maximum number of lookups that found nothing cached in front of the backends.
+     *
+     * @return the cache size, or 0 if misses are not cached.
+     */
+    public int getNegativeCacheMaxSize() {
+        return negativeCacheMaxSize;
+    }
+
+    /**
+     * How long a lookup that found nothing stays cached.
+     *
+     * @return the time to live in milliseconds, or 0 if misses do not expire.
+     */
+    public long getNegativeCacheTtlMillis() {
+        return negativeCacheTtlMillis;
+    }
+
+    /**
+     * Builds a {@link NetDBConfig}
+     */
+    public static final class Builder {
+        private boolean pureJava = SystemProperties.getBoolean("pureJava", false);
+        private List<Backend> servicesBackends = backendsProperty("services.backends");
+        private List<Backend> protocolsBackends = backendsProperty("protocols.backends");
+        private File servicesFile = fileProperty("services.file", new File(FileServicesDB.fileName));
+        private File protocolsFile = fileProperty("protocols.file", FileProtocolsDB.locateProtocolsFile());
+        private boolean preload = SystemProperties.getBoolean("preload", false);
+        private boolean nsswitch = SystemProperties.getBoolean("nsswitch", true);
+        private boolean nativeAsync = SystemProperties.getBoolean("native.async", false);
+        private boolean adaptive = SystemProperties.getBoolean("adaptive", false);
+        private long adaptiveBudgetMillis = Math.max(0, SystemProperties.getLong("adaptive.budget", 20));
+        private File snapshotFile = fileProperty("snapshot", null);
+        private boolean watch = SystemProperties.getBoolean("watch", false);
+        private long watchIntervalMillis = Math.max(1, SystemProperties.getLong("watch.interval", 5000));
+        private boolean fileLowMemory = SystemProperties.getBoolean("file.lowMemory", false);
+        private int cacheMaxSize = Math.max(0, SystemProperties.getInt("cache.maxSize", 0));
+        private long cacheTtlMillis = Math.max(0, SystemProperties.getLong("cache.ttl", 0));
+        private int negativeCacheMaxSize = Math.max(0, SystemProperties.getInt("cache.negative.maxSize", 0));
+        private long negativeCacheTtlMillis = Math.max(0, SystemProperties.getLong("cache.negative.ttl", 0));
+
+        Builder() {
+        }
+
+        /**
+         * Parses a comma separated list of backend names, falling back to jnr.netdb.backends,
+         * and then to the default order.  Unknown names are ignored.
+         */
+        private static List<Backend> backendsProperty(String name) {
+            String value = SystemProperties.getString(name, SystemProperties.getString("backends", null));
+            if (value == null) {
+                return DEFAULT_BACKENDS;
+            }
+
+            List<Backend> backends = new ArrayList<Backend>();
+            for (String backendName : value.split(",")) {
+                for (Backend backend : Backend.values()) {
+                    if (backend.name().equalsIgnoreCase(backendName.trim()) && !backends.contains(backend)) {
+                        backends.add(backend);
+                    }
+                }
+            }
+
+            return !backends.isEmpty() ? backends : DEFAULT_BACKENDS;
+        }
+
+        private static File fileProperty(String name, File defaultValue) {
+            String path = SystemProperties.getString(name, null);
+            return path != null && path.length() > 0 ? new File(path) : defaultValue;
+        }
+
+        private static List<Backend> checkBackends(Backend... backends) {
+            if (backends.length == 0) {
+                throw new IllegalArgumentException("no backends");
+            }
+
+            List<Backend> list = new ArrayList<Backend>();
+            for (Backend backend : backends) {
+                if (backend == null) {
+                    throw new NullPointerException("backend");
+                }
+                if (list.contains(backend)) {
+                    throw new IllegalArgumentException("duplicate backend " + backend);
+                }
+                list.add(backend);
+            }
+
+            return list;
+        }
+
+        private static File checkFile(File file, String name) {
+            if (file == null) {
+                throw new NullPointerException(name);
+            }
+
+            return file;
+        }
+
+        private static void checkCache(int maxSize, long ttlMillis) {
+            if (maxSize < 0 || ttlMillis < 0) {
+                throw new IllegalArgumentException("negative cache size or time to live");
+            }
+        }
+
+        /**
+         * Sets whether entries are only looked up in Java.  In this mode jnr-ffi
+         * is never loaded, and {@link Backend#NATIVE} is left out of the backends.
+         * Defaults to the jnr.netdb.pureJava system property.
+         *
+         * @param pureJava {@code true} to never use the native functions.
+         * @return this {@code Builder}
+         */
+        public Builder pureJava(boolean pureJava) {
+            this.pureJava = pureJava;
+            return this;
+        }
+
+        /**
+         * Sets the backends both services and protocols are looked up in, in order.
+         * Defaults to the jnr.netdb.backends system property, a comma separated list
+         * of names such as {@code file,iana}, or else {@code native,file,iana}.
+         *
+         * @param backends the backends to try, in order.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if there are no backends, or one is repeated.
+         */
+        public Builder backends(Backend... backends) {
+            this.servicesBackends = this.protocolsBackends = checkBackends(backends);
+            return this;
+        }
+
+        /**
+         * Sets the backends services are looked up in, in order.  Defaults to the
+         * jnr.netdb.services.backends system property, or else jnr.netdb.backends.
+         *
+         * @param backends the backends to try, in order.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if there are no backends, or one is repeated.
+         */
+        public Builder servicesBackends(Backend... backends) {
+            this.servicesBackends = checkBackends(backends);
+            return this;
+        }
+
+        /**
+         * Sets the backends protocols are looked up in, in order.  Defaults to the
+         * jnr.netdb.protocols.backends system property, or else jnr.netdb.backends.
+         *
+         * @param backends the backends to try, in order.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if there are no backends, or one is repeated.
+         */
+        public Builder protocolsBackends(Backend... backends) {
+            this.protocolsBackends = checkBackends(backends);
+            return this;
+        }
+
+        /**
+         * Sets the services file.  Defaults to the jnr.netdb.services.file system
+         * property, or else /etc/services.
+         *
+         * @param servicesFile the services file.
+         * @return this {@code Builder}
+         */
+        public Builder servicesFile(File servicesFile) {
+            this.servicesFile = checkFile(servicesFile, "servicesFile");
+            return this;
+        }
+
+        /**
+         * Sets the protocols file.  Defaults to the jnr.netdb.protocols.file system
+         * property, or else /etc/protocols.
+         *
+         * @param protocolsFile the protocols file.
+         * @return this {@code Builder}
+         */
+        public Builder protocolsFile(File protocolsFile) {
+            this.protocolsFile = checkFile(protocolsFile, "protocolsFile");
+            return this;
+        }
+
+        /**
+         * Sets whether the native DBs are enumerated once, and all lookups answered
+         * from memory.  Defaults to the jnr.netdb.preload system property.
+         *
+         * @param preload {@code true} to preload the native DBs.
+         * @return this {@code Builder}
+         */
+        public Builder preload(boolean preload) {
+            this.preload = preload;
+            return this;
+        }
+
+        /**
+         * Sets whether the {@link Backend#NATIVE} backend parses /etc/services or
+         * /etc/protocols itself, when /etc/nsswitch.conf lists {@code files} as the
+         * only source of that database.  The C library would only scan the same file,
+         * so the answers are the same, without a native call per lookup.  The file is
+         * read once, and edits are only picked up if {@link #watch(boolean)} is set,
+         * where the C library would see them on the next lookup.  Defaults to the
+         * jnr.netdb.nsswitch system property, or else true.
+         *
+         * @param nsswitch {@code true} to check nsswitch.conf.
+         * @return this {@code Builder}
+         */
+        public Builder nsswitch(boolean nsswitch) {
+            this.nsswitch = nsswitch;
+            return this;
+        }
+
+        /**
+         * Sets whether the native functions are bound on a background thread, while
+         * lookups are answered from the next backend.  Only applies when
+         * {@link Backend#NATIVE} comes first.  Defaults to the jnr.netdb.native.async
+         * system property.
+         *
+         * @param nativeAsync {@code true} to bind the native functions in the background.
+         * @return this {@code Builder}
+         */
+        public Builder nativeAsync(boolean nativeAsync) {
+            this.nativeAsync = nativeAsync;
+            return this;
+        }
+
+        /**
+         * Sets whether every usable backend is opened and timed on a sample of lookups,
+         * and the fastest one that gives the same answers as the first is used.  This
+         * takes precedence over {@link #nativeAsync(boolean)}.  Defaults to the
+         * jnr.netdb.adaptive system property.
+         *
+         * @param adaptive {@code true} to choose the backend adaptively.
+         * @return this {@code Builder}
+         */
+        public Builder adaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * Sets roughly how long the backends of each DB are timed for, when the backend
+         * is chosen adaptively.  Defaults to the jnr.netdb.adaptive.budget system
+         * property, or else 20 milliseconds.
+         *
+         * @param millis the time budget in milliseconds.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if the budget is negative.
+         */
+        public Builder adaptiveBudget(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("negative time budget");
+            }
+            this.adaptiveBudgetMillis = millis;
+            return this;
+        }
+
+        /**
+         * Sets the file the resolved services DB is saved to, and loaded from by
+         * later JVMs.  Defaults to the jnr.netdb.snapshot system property.
+         *
+         * @param snapshotFile the snapshot file, or {@code null} to not use snapshots.
+         * @return this {@code Builder}
+         */
+        public Builder snapshotFile(File snapshotFile) {
+            this.snapshotFile = snapshotFile;
+            return this;
+        }
+
+        /**
+         * Sets whether the services and protocols files parsed by Java are reloaded
+         * when they change.  Defaults to the jnr.netdb.watch system property.
+         *
+         * @param watch {@code true} to watch the files.
+         * @return this {@code Builder}
+         */
+        public Builder watch(boolean watch) {
+            this.watch = watch;
+            return this;
+        }
+
+        /**
+         * Sets how often watched files are checked for changes, besides when the file
+         * system reports one.  Defaults to the jnr.netdb.watch.interval system property,
+         * or else 5000 milliseconds.
+         *
+         * @param millis the poll interval in milliseconds.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if the interval is not positive.
+         */
+        public Builder watchInterval(long millis) {
+            if (millis <= 0) {
+                throw new IllegalArgumentException("watch interval must be positive");
+            }
+            this.watchIntervalMillis = millis;
+            return this;
+        }
+
+        /**
+         * Sets whether the services file is read on each lookup, keeping only tables
+         * of line offsets in memory, instead of being indexed in memory.  Defaults to
+         * the jnr.netdb.file.lowMemory system property.
+         *
+         * @param fileLowMemory {@code true} to read the services file on each lookup.
+         * @return this {@code Builder}
+         */
+        public Builder fileLowMemory(boolean fileLowMemory) {
+            this.fileLowMemory = fileLowMemory;
+            return this;
+        }
+
+        /**
+         * Sets the cache of found entries.  Defaults to the jnr.netdb.cache.maxSize
+         * and jnr.netdb.cache.ttl system properties.
+         *
+         * @param maxSize the maximum number of cached entries, or 0 to not cache them.
+         * @param ttlMillis how long entries stay cached, or 0 for ever.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if either value is negative.
+         */
+        public Builder cache(int maxSize, long ttlMillis) {
+            checkCache(maxSize, ttlMillis);
+            this.cacheMaxSize = maxSize;
+            this.cacheTtlMillis = ttlMillis;
+            return this;
+        }
+
+        /**
+         * Sets the cache of lookups that found nothing.  Defaults to the
+         * jnr.netdb.cache.negative.maxSize and jnr.netdb.cache.negative.ttl system properties.
+         *
+         * @param maxSize the maximum number of cached misses, or 0 to not cache them.
+         * @param ttlMillis how long misses stay cached, or 0 for ever.
+         * @return this {@code Builder}
+         * @throws IllegalArgumentException if either value is negative.
+         */
+        public Builder negativeCache(int maxSize, long ttlMillis) {
+            checkCache(maxSize, ttlMillis);
+            this.negativeCacheMaxSize = maxSize;
+            this.negativeCacheTtlMillis = ttlMillis;
+            return this;
+        }
+
+        /**
+         * Creates the configuration.
+         *
+         * @return a new {@code NetDBConfig}
+         */
+        public NetDBConfig build() {
+            return new NetDBConfig(this);
+        }
+    }
+}
@@ -18,9 +18,7 @@
 
 package jnr.netdb;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -28,47 +26,30 @@ import java.util.NoSuchElementException;
 
 final class NetDBIterator implements java.util.Iterator<NetDBEntry> {
 
-    private final BufferedReader reader;
+    private final NetDBTokenizer tokenizer;
     private NetDBEntry next = null;
 
-    public NetDBIterator(Reader r) {
-        this.reader = r instanceof BufferedReader ? (BufferedReader) r : new BufferedReader(r);
+    public NetDBIterator(NetDBTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
     }
 
     NetDBEntry readNextEntry() throws IOException {
-        String s = null;
-
-        while ((s = reader.readLine()) != null) {
-
-            String[] line = s.split("#", 2);
-            // Skip empty lines, or lines that are all comment
-            if (line.length < 1 || line[0].length() == 0) {
-                continue;
-            }
-
-            String[] fields = line[0].trim().split("\\s+");
-            if (fields.length < 2 || fields[0] == null || fields[1] == null) {
-                continue;
-            }
+        if (!tokenizer.nextLine()) {
+            return null;
+        }
 
-            String serviceName = fields[0];
-            String data = fields[1];
-            List<String> aliases;
-            if (fields.length > 2) {
-                aliases = new ArrayList<String>(fields.length - 2);
-                for (int i = 2; i < fields.length; ++i) {
-                    if (fields[i] != null) {
-                        aliases.add(fields[i]);
-                    }
-                }
-            } else {
-                aliases = Collections.emptyList();
+        int fieldCount = tokenizer.fieldCount();
+        List<String> aliases;
+        if (fieldCount > 2) {
+            aliases = new ArrayList<String>(fieldCount - 2);
+            for (int i = 2; i < fieldCount; ++i) {
+                aliases.add(tokenizer.field(i));
             }
-
-            return new NetDBEntry(serviceName, data, aliases);
+        } else {
+            aliases = Collections.emptyList();
         }
-        
-        return null;
+
+        return new NetDBEntry(tokenizer.field(0), tokenizer.field(1), aliases);
     }
 
     public boolean hasNext() {
@@ -19,25 +19,161 @@
 package jnr.netdb;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 /**
  *
  */
 class NetDBParser implements Iterable<NetDBEntry>, Closeable {
-    private final Reader reader;
+    /** Files bigger than this are mapped rather than read onto the heap */
+    static final int MAP_THRESHOLD = 4 << 20;
 
-    public NetDBParser(Reader r) {
-        this.reader = r;
+    private final Closeable source;
+    private final NetDBTokenizer tokenizer;
+    private final ByteBuffer buffer;
+
+    public NetDBParser(InputStream in) {
+        this.source = in;
+        this.buffer = null;
+
+        // Read files through their channel directly, rather than via an intermediate copy
+        ReadableByteChannel channel = in instanceof FileInputStream
+                ? ((FileInputStream) in).getChannel() : Channels.newChannel(in);
+        this.tokenizer = new NetDBTokenizer(channel);
+    }
+
+    private NetDBParser(Closeable source, ByteBuffer buffer) {
+        this.source = source;
+        this.buffer = buffer;
+        this.tokenizer = new NetDBTokenizer(buffer);
+    }
+
+    /**
+     * Creates a parser that tokenizes the bytes of a whole file in place, without
+     * decoding them first.
+     *
+     * The file is read onto the heap, or mapped if it is very large, as described in
+     * {@link #read(FileChannel)}; use {@link #mapFile(File)} to always map it.
+     *
+     * @param file the file to read.
+     * @return a new {@code NetDBParser}
+     * @throws IOException if the file cannot be opened or read.
+     */
+    static NetDBParser open(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            return new NetDBParser(channel, read(channel));
+
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the whole of a file into a buffer.
+     *
+     * @param file the file to read.
+     * @return the contents of the file.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    static ByteBuffer readFile(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            return read(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the whole of a file into a buffer.
+     *
+     * Files of up to {@link #MAP_THRESHOLD} bytes, which includes any ordinary
+     * /etc/services or /etc/protocols, are copied onto the heap, so the file is
+     * neither kept open nor locked (as a mapping would on Windows), and can be
+     * truncated safely.  Bigger files are mapped read-only, so they are not copied;
+     * if such a file is truncated while it is being parsed, the JVM reports an
+     * {@code InternalError}, which the file watcher
+     * treats like any other failure to reload it.
+     *
+     * @param channel the file to read.
+     * @return the contents of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        // The file may shrink while it is read, but never reads past the size it had
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) >= 0) {
+        }
+        buf.flip();
+
+        return buf;
+    }
+
+    /**
+     * Creates a read-only memory mapping of a whole file.
+     *
+     * The mapping stays valid after this method returns, even though the file is
+     * closed, and is only released when the buffer is garbage collected.  Until
+     * then the file cannot be deleted or replaced on Windows, and truncating it in
+     * place makes reads of the mapping fail with an {@code InternalError}, so
+     * only map files that are replaced by renaming a new file over them.
+     *
+     * @param file the file to map.
+     * @return the mapped contents of the file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    static MappedByteBuffer mapFile(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the tokenizer, for callers that work with field offsets rather than {@link NetDBEntry}s
+     */
+    NetDBTokenizer tokenizer() {
+        return tokenizer;
     }
 
     public Iterator<NetDBEntry> iterator() {
-        return new NetDBIterator(reader);
+        return new NetDBIterator(tokenizer);
+    }
+
+    /**
+     * Returns a {@code Spliterator} over the entries.
+     *
+     * For a parser created by {@link #open(File)}, the {@code Spliterator} can be split at line boundaries, so
+     * the entries can be parsed in parallel (e.g. with {@code StreamSupport.stream(parser.spliterator(), true)}).
+     */
+    @Override
+    public Spliterator<NetDBEntry> spliterator() {
+        return buffer != null
+                ? new NetDBSpliterator(buffer.duplicate())
+                : Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
     }
     
     public void close() throws IOException {
-        reader.close();
+        source.close();
     }
 }
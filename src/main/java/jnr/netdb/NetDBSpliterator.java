@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Spliterator} over the entries of a services/protocols style file held
+ * in a buffer (e.g. a whole file).
+ *
+ * The buffer is split in half at the nearest line boundary, so each part can be
+ * tokenized independently, and in parallel.  Comments never span lines, so every
+ * part yields exactly the entries of its lines.
+ */
+final class NetDBSpliterator implements Spliterator<NetDBEntry> {
+    /** Parts smaller than this are not split any further */
+    static final int MIN_SPLIT_SIZE = 4096;
+
+    /** A rough guess at the number of bytes per entry, to estimate the size */
+    private static final int BYTES_PER_ENTRY = 32;
+
+    private final ByteBuffer buf;
+    private int start;
+    private final int end;
+    private NetDBIterator iterator;
+
+    /**
+     * Creates a {@code Spliterator} over the bytes between the position and the limit of a buffer.
+     */
+    NetDBSpliterator(ByteBuffer buf) {
+        this(buf, buf.position(), buf.limit());
+    }
+
+    private NetDBSpliterator(ByteBuffer buf, int start, int end) {
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the buffer holding the file.
+     */
+    ByteBuffer buffer() {
+        return buf;
+    }
+
+    /**
+     * Returns the offset in the buffer of the first byte not yet split off or traversed.
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * Returns the offset in the buffer just past the last byte of this part.
+     */
+    int end() {
+        return end;
+    }
+
+    public boolean tryAdvance(Consumer<? super NetDBEntry> action) {
+        if (iterator == null) {
+            ByteBuffer region = buf.duplicate();
+            region.limit(end).position(start);
+            iterator = new NetDBIterator(new NetDBTokenizer(region));
+        }
+
+        if (!iterator.hasNext()) {
+            return false;
+        }
+        action.accept(iterator.next());
+
+        return true;
+    }
+
+    /**
+     * Splits off the first half of the remaining lines.
+     *
+     * @return a {@code Spliterator} over the lines before the split, or {@code null} if
+     * this part is too small to split, or traversal has already started.
+     */
+    public NetDBSpliterator trySplit() {
+        if (iterator != null || end - start < MIN_SPLIT_SIZE * 2) {
+            return null;
+        }
+
+        int split = start + (end - start) / 2;
+        while (split < end && buf.get(split - 1) != '\n') {
+            split++;
+        }
+        if (split >= end) {
+            return null;
+        }
+
+        NetDBSpliterator prefix = new NetDBSpliterator(buf, start, split);
+        start = split;
+
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return iterator == null ? Math.max(1, (end - start) / BYTES_PER_ENTRY) : Long.MAX_VALUE;
+    }
+
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+/**
+ * De-duplicates the strings created from a {@link NetDBTokenizer}.
+ *
+ * Names, aliases and protocols repeat a lot in a services file (most services
+ * have both a tcp and a udp entry), so strings are looked up by hashing the
+ * bytes in place, and a new {@code String} is only created the first time
+ * a sequence of bytes is seen.
+ */
+final class NetDBStringPool {
+    private String[] table;
+    private int size;
+
+    NetDBStringPool() {
+        this(1024);
+    }
+
+    /**
+     * @param capacity the initial number of slots in the table; a power of two.
+     */
+    NetDBStringPool(int capacity) {
+        this.table = new String[capacity];
+    }
+
+    String get(NetDBTokenizer t, int start, int end) {
+        int h = t.hash(start, end);
+        int mask = table.length - 1;
+        for (int i = mix(h) & mask; ; i = (i + 1) & mask) {
+            String s = table[i];
+            if (s == null) {
+                s = t.string(start, end);
+                table[i] = s;
+                if (++size > table.length / 2) {
+                    rehash();
+                }
+                return s;
+
+            } else if (s.hashCode() == h && t.regionMatches(start, end, s)) {
+                return s;
+            }
+        }
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String s : old) {
+            if (s != null) {
+                int i = mix(s.hashCode()) & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = s;
+            }
+        }
+    }
+}
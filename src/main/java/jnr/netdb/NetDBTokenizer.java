@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the lines of a services/protocols style file into whitespace separated fields.
+ *
+ * The input is scanned once, byte by byte, as ISO-8859-1.  Everything after a '#'
+ * on a line is ignored, and lines with fewer than two fields are skipped.  Fields
+ * are only recorded as offsets into the buffer, so no objects are created unless
+ * {@link #field(int)} or {@link #string(int, int)} is called.
+ *
+ * The input is either read from a channel into an internal buffer, or is a buffer
+ * holding the whole input (e.g. a whole file), which is then tokenized in place.
+ */
+final class NetDBTokenizer {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buf;
+    private boolean eof;
+
+    /** Current scan position and end of valid data in {@code buf} */
+    private int pos, limit;
+
+    /** Start of the line being scanned, and of the field being scanned (or -1) */
+    private int lineStart, tokenStart = -1;
+
+    private int[] fieldStart = new int[8], fieldEnd = new int[8];
+    private int fieldCount;
+    private byte[] scratch;
+
+    NetDBTokenizer(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buf = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        this.limit = 0;
+    }
+
+    /**
+     * Tokenizes the bytes between the position and the limit of a buffer in place.
+     */
+    NetDBTokenizer(ByteBuffer buf) {
+        this.channel = null;
+        this.buf = buf;
+        this.pos = buf.position();
+        this.limit = buf.limit();
+    }
+
+    /**
+     * Advances to the next line that has at least two fields.
+     *
+     * @return {@code true} if a line was found, {@code false} at the end of the input.
+     */
+    boolean nextLine() throws IOException {
+        fieldCount = 0;
+        tokenStart = -1;
+        lineStart = pos;
+        boolean comment = false;
+
+        for (;;) {
+            if (pos >= limit && !fill()) {
+                // The end of the input terminates the last line
+                endToken(pos);
+                return fieldCount >= 2;
+            }
+
+            byte b = buf.get(pos++);
+            if (b == '\n') {
+                endToken(pos - 1);
+                if (fieldCount >= 2) {
+                    return true;
+                }
+                fieldCount = 0;
+                lineStart = pos;
+                comment = false;
+
+            } else if (comment) {
+                continue;
+
+            } else if (b == '#') {
+                endToken(pos - 1);
+                comment = true;
+
+            } else if (isWhitespace(b)) {
+                endToken(pos - 1);
+
+            } else if (tokenStart < 0) {
+                tokenStart = pos - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of fields on the current line.
+     */
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the offset of the first byte of a field of the current line.
+     *
+     * Offsets are only valid until the next call to {@link #nextLine()}.
+     */
+    int fieldStart(int idx) {
+        return fieldStart[idx];
+    }
+
+    /**
+     * Returns the offset just past the last byte of a field of the current line.
+     */
+    int fieldEnd(int idx) {
+        return fieldEnd[idx];
+    }
+
+    /**
+     * Returns a field of the current line as a {@code String}
+     */
+    String field(int idx) {
+        return string(fieldStart[idx], fieldEnd[idx]);
+    }
+
+    /**
+     * Returns the offset of the first occurrence of {@code b} in {@code [start, end)}, or -1
+     */
+    int indexOf(int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Computes the same hash code as {@link String#hashCode()} would for the bytes in {@code [start, end)}
+     */
+    int hash(int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + (buf.get(i) & 0xff);
+        }
+
+        return h;
+    }
+
+    /**
+     * Checks if the bytes in {@code [start, end)} are the same characters as {@code s}
+     */
+    boolean regionMatches(int start, int end, String s) {
+        if (s.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i - start) != (buf.get(i) & 0xff)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses the bytes in {@code [start, end)} as an unsigned decimal integer.
+     *
+     * @return the integer value, or -1 if the bytes are not a valid decimal integer.
+     */
+    int parseInt(int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9 || (value = value * 10 + digit) > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Returns the bytes in {@code [start, end)} as a {@code String}
+     */
+    String string(int start, int end) {
+        int off = start, len = end - start;
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + off, len, StandardCharsets.ISO_8859_1);
+        }
+
+        if (scratch == null || scratch.length < len) {
+            scratch = new byte[Math.max(len, 64)];
+        }
+        for (int i = 0; i < len; i++) {
+            scratch[i] = buf.get(off + i);
+        }
+
+        return new String(scratch, 0, len, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // Same set of characters as the regex \s
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0b;
+    }
+
+    private void endToken(int end) {
+        if (tokenStart < 0) {
+            return;
+        }
+
+        if (fieldCount == fieldStart.length) {
+            int[] newStart = new int[fieldCount * 2], newEnd = new int[fieldCount * 2];
+            System.arraycopy(fieldStart, 0, newStart, 0, fieldCount);
+            System.arraycopy(fieldEnd, 0, newEnd, 0, fieldCount);
+            fieldStart = newStart;
+            fieldEnd = newEnd;
+        }
+
+        fieldStart[fieldCount] = tokenStart;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+        tokenStart = -1;
+    }
+
+    /**
+     * Reads more input into the buffer, keeping the current line.
+     *
+     * @return {@code false} if there is no more input.
+     */
+    private boolean fill() throws IOException {
+        if (channel == null || eof) {
+            return false;
+        }
+
+        // Move the partial line to the start of the buffer, growing it if the line fills the whole buffer
+        int shift = lineStart;
+        if (shift == 0 && limit == buf.capacity()) {
+            ByteBuffer newBuf = ByteBuffer.allocate(buf.capacity() * 2);
+            buf.position(0).limit(limit);
+            newBuf.put(buf);
+            buf = newBuf;
+
+        } else if (shift > 0) {
+            buf.position(shift).limit(limit);
+            buf.compact();
+        }
+
+        pos -= shift;
+        limit -= shift;
+        lineStart = 0;
+        if (tokenStart >= 0) {
+            tokenStart -= shift;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fieldStart[i] -= shift;
+            fieldEnd[i] -= shift;
+        }
+
+        buf.limit(buf.capacity()).position(limit);
+        if (channel.read(buf) < 0) {
+            eof = true;
+            return false;
+        }
+        limit = buf.position();
+
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The sources the C library looks each database up in, as listed in /etc/nsswitch.conf.
+ *
+ * Each line names a database and its sources, e.g. {@code services: files sss}.
+ * Actions such as {@code [NOTFOUND=return]} only decide whether later sources are
+ * tried, so they are dropped.
+ */
+final class NsSwitchConf {
+    static final String fileName = "/etc/nsswitch.conf";
+
+    private final Map<String, List<String>> sources;
+
+    private NsSwitchConf(Map<String, List<String>> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Loads an nsswitch.conf file.
+     *
+     * @param file the file to load.
+     * @return the parsed file, or {@code null} if it is missing or cannot be read.
+     */
+    static NsSwitchConf load(File file) {
+        try {
+            Reader r = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                return parse(r);
+            } finally {
+                r.close();
+            }
+
+        } catch (FileNotFoundException ex) {
+            return null;
+
+        } catch (IOException ex) {
+            Logger.getLogger(NsSwitchConf.class.getName()).log(Level.FINE, "cannot read " + file, ex);
+            return null;
+        }
+    }
+
+    static NsSwitchConf parse(Reader r) throws IOException {
+        Map<String, List<String>> sources = new HashMap<String, List<String>>();
+        BufferedReader reader = new BufferedReader(r);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                line = line.substring(0, hash);
+            }
+
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+
+            String database = line.substring(0, colon).trim();
+            if (database.length() < 1 || sources.containsKey(database)) {
+                continue;
+            }
+
+            List<String> list = new ArrayList<String>();
+            for (String source : line.substring(colon + 1).replaceAll("\\[[^\\]]*\\]", " ").trim().split("\\s+")) {
+                if (source.length() > 0) {
+                    list.add(source.toLowerCase());
+                }
+            }
+            sources.put(database, Collections.unmodifiableList(list));
+        }
+
+        return new NsSwitchConf(sources);
+    }
+
+    /**
+     * Returns the sources of a database.
+     *
+     * @param database the database name, e.g. {@code services}.
+     * @return the sources in the order they are tried, or {@code null} if the database is not listed.
+     */
+    List<String> getSources(String database) {
+        return sources.get(database);
+    }
+
+    /**
+     * Tests if a database is only looked up in its file under /etc.  A database
+     * that is not listed is not assumed to be, since the C library's default
+     * differs between versions.
+     *
+     * @param database the database name, e.g. {@code services}.
+     * @return {@code true} if {@code files} is the only source of the database.
+     */
+    boolean isFilesOnly(String database) {
+        return Collections.singletonList("files").equals(sources.get(database));
+    }
+}
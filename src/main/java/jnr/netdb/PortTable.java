@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+/**
+ * Maps port numbers (0 - 65535) to services, without boxing the port.
+ *
+ * The table has two levels: the high byte of the port selects a page of 256
+ * slots, indexed by the low byte.  Pages are only allocated once a port in
+ * their range is added, so a table of well known ports (below 1024) is just
+ * four pages.
+ */
+final class PortTable {
+    static final int MAX_PORT = 0xffff;
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Service[][] pages = new Service[(MAX_PORT + 1) >>> PAGE_BITS][];
+
+    /**
+     * Returns the service for a port, or {@code null} if there is none or the port is out of range.
+     */
+    Service get(int port) {
+        if (port < 0 || port > MAX_PORT) {
+            return null;
+        }
+
+        Service[] page = pages[port >>> PAGE_BITS];
+        return page != null ? page[port & PAGE_MASK] : null;
+    }
+
+    /**
+     * Sets the service for a port, replacing any previous one.
+     */
+    void put(int port, Service s) {
+        if (port < 0 || port > MAX_PORT) {
+            throw new IllegalArgumentException("invalid port " + port);
+        }
+
+        Service[] page = pages[port >>> PAGE_BITS];
+        if (page == null) {
+            pages[port >>> PAGE_BITS] = page = new Service[PAGE_SIZE];
+        }
+        page[port & PAGE_MASK] = s;
+    }
+}
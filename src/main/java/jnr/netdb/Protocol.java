@@ -18,12 +18,23 @@
 
 package jnr.netdb;
 
+import java.io.File;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jnr.netdb.NetDBConfig.Backend;
 
 /**
  * An entry in the system protocol database
  */
 public final class Protocol {
+    /** The largest buffer a native lookup has needed, kept here so reading it never loads jnr-ffi */
+    static final AtomicInteger nativeBufferHighWaterMark = new AtomicInteger();
+
     /** Official protocol name */
     private final String protocolName;
 
@@ -60,6 +71,61 @@ public final class Protocol {
     }
 
 
+    /**
+     * Returns the size of the largest buffer a native protocols lookup has needed.
+     *
+     * The C library functions are called with a 4096 byte buffer, which is grown
+     * and the call retried when an entry (e.g. one with many aliases) does not fit.
+     * Buffers of new threads start at this size.
+     *
+     * @return the largest buffer size in bytes, or 0 if no buffer has had to grow.
+     */
+    public static final int getNativeBufferHighWaterMark() {
+        return nativeBufferHighWaterMark.get();
+    }
+
+    /**
+     * Returns statistics for the protocol lookup cache.
+     *
+     * Caching is enabled by setting the {@code jnr.netdb.cache.maxSize} system property
+     * to the maximum number of entries, and optionally {@code jnr.netdb.cache.ttl} to the
+     * number of milliseconds entries stay valid for.
+     *
+     * @return a snapshot of the cache statistics, all zero if caching is not enabled.
+     */
+    public static final CacheStats getCacheStats() {
+        ProtocolsDB db = getCurrentProtocolDB();
+        return db instanceof CachingProtocolsDB ? ((CachingProtocolsDB) db).getCacheStats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Returns statistics for the cache of protocol lookups that found nothing.
+     *
+     * Caching of misses is enabled by setting the {@code jnr.netdb.cache.negative.maxSize}
+     * system property to the maximum number of entries, and optionally
+     * {@code jnr.netdb.cache.negative.ttl} to the number of milliseconds entries stay valid for.
+     *
+     * @return a snapshot of the cache statistics, all zero if caching of misses is not enabled.
+     */
+    public static final CacheStats getNegativeCacheStats() {
+        ProtocolsDB db = getCurrentProtocolDB();
+        return db instanceof CachingProtocolsDB ? ((CachingProtocolsDB) db).getMissCacheStats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Returns how the protocols backend was chosen, when it is chosen adaptively.
+     *
+     * Adaptive selection is enabled by setting the {@code jnr.netdb.adaptive}
+     * system property to true, or with {@link NetDBConfig.Builder#adaptive(boolean)}.
+     *
+     * @return the backend lookups are answered from and the timings behind the choice,
+     * or {@code null} if the backend was not chosen adaptively.
+     */
+    public static final BackendSelection getBackendSelection() {
+        getProtocolDB();
+        return ProtocolDBSingletonHolder.selection;
+    }
+
     /**
      * Returns the official IANA name of this {@code Protocol}
      *
@@ -96,23 +162,123 @@ public final class Protocol {
         return ProtocolDBSingletonHolder.INSTANCE;
     }
 
+    /**
+     * Returns the ProtocolDB lookups are currently answered from, which may change
+     * once if the native functions are bound in the background
+     */
+    private static final ProtocolsDB getCurrentProtocolDB() {
+        ProtocolsDB db = getProtocolDB();
+        return db instanceof SwappableProtocolsDB ? ((SwappableProtocolsDB) db).current() : db;
+    }
+
     /**
      * Holds the global lazily-loaded instance of the ProtocolDB
      */
     private static final class ProtocolDBSingletonHolder {
+        /** Set while loading, if the backend is chosen adaptively */
+        static BackendSelection selection;
+
         static final ProtocolsDB INSTANCE = load();
 
         private static final ProtocolsDB load() {
-            // Try to use the native functions if possible
-            ProtocolsDB db = NativeProtocolsDB.getInstance();
+            final NetDBConfig config = NetDBConfig.current();
+
+            // Optionally time every usable backend, and use the fastest
+            List<Backend> backends = config.getProtocolsBackends();
+            if (config.isAdaptive()) {
+                return CachingProtocolsDB.wrap(select(config, backends), config);
+            }
+
+            // Optionally bind the native functions on a background thread, and answer
+            // lookups from the next backends until they are ready
+            if (config.isNativeAsync() && !backends.isEmpty() && backends.get(0) == Backend.NATIVE) {
+                ProtocolsDB fallback = resolve(config, backends.subList(1, backends.size()));
+                return SwappableProtocolsDB.swapInBackground(CachingProtocolsDB.wrap(fallback, config), new Callable<ProtocolsDB>() {
+                    public ProtocolsDB call() {
+                        ProtocolsDB db = open(Backend.NATIVE, config, config.isWatch());
+                        return db != null ? CachingProtocolsDB.wrap(db, config) : null;
+                    }
+                });
+            }
+
+            // Optionally cache lookups in front of whichever DB was chosen
+            return CachingProtocolsDB.wrap(resolve(config, backends), config);
+        }
+
+        /**
+         * Returns the first of the backends that can be used
+         */
+        private static final ProtocolsDB resolve(NetDBConfig config, List<Backend> backends) {
+            for (Backend backend : backends) {
+                ProtocolsDB db = open(backend, config, config.isWatch());
+                if (db != null) {
+                    return db;
+                }
+            }
+
+            // None of the backends can be used, so nothing will be found
+            return new ProtocolsIndex.Builder().build();
+        }
 
-            // Fall back to parsing /etc/protocols directly.
-            if (db == null) {
-                db = FileProtocolsDB.getInstance();
+        /**
+         * Opens every usable backend, and returns the fastest of those that agree with the first
+         */
+        private static final ProtocolsDB select(NetDBConfig config, List<Backend> backends) {
+            Map<Backend, ProtocolsDB> candidates = new LinkedHashMap<Backend, ProtocolsDB>();
+            for (Backend backend : backends) {
+                // Only the chosen backend is watched, as the others are dropped
+                ProtocolsDB db = open(backend, config, false);
+                if (db != null) {
+                    candidates.put(backend, db);
+                }
             }
 
-            // As a last resort, fall back to the hard coded table
-            return db != null ? db : IANAProtocolsDB.getInstance();
+            if (candidates.isEmpty()) {
+                return new ProtocolsIndex.Builder().build();
+            }
+
+            selection = BackendSelector.selectProtocols(candidates, config.getAdaptiveBudgetMillis());
+            Backend backend = selection.getBackend();
+            ProtocolsDB db = candidates.get(backend);
+            if (config.isWatch()) {
+                FileProtocolsDB.watch(db);
+            }
+
+            return db;
+        }
+
+        /**
+         * Tests if nsswitch.conf only lists files as the source of protocols
+         */
+        private static final boolean isFilesOnly(NetDBConfig config) {
+            NsSwitchConf nsswitch = config.isNsSwitch() ? NsSwitchConf.load(new File(NsSwitchConf.fileName)) : null;
+            return nsswitch != null && nsswitch.isFilesOnly("protocols");
+        }
+
+        private static final ProtocolsDB open(Backend backend, NetDBConfig config, boolean watch) {
+            switch (backend) {
+                case NATIVE:
+                    // The C library would only scan /etc/protocols, whatever the protocols file of
+                    // the FILE backend is, so index that here instead.  It is only watched
+                    // if configured, where the C library reads it again on every lookup
+                    ProtocolsDB db = isFilesOnly(config) ? FileProtocolsDB.load(FileProtocolsDB.locateProtocolsFile(), watch) : null;
+                    if (db != null) {
+                        return db;
+                    }
+
+                    // Optionally enumerate the native DB once, and answer all lookups from memory
+                    db = NativeProtocolsDB.getInstance();
+                    return db != null && config.isPreload() ? ProtocolsIndex.preload(db) : db;
+
+                case FILE:
+                    return FileProtocolsDB.load(config.getProtocolsFile(), watch);
+
+                case IANA:
+                    return IANAProtocolsDB.getInstance();
+
+                default:
+                    return null;
+            }
         }
     }
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable, in-memory index of protocols.
+ *
+ * IP protocol numbers fit in a byte, so numbers are looked up in a dense
+ * 256 slot table.  As with a linear scan of /etc/protocols, the first entry
+ * (in insertion order) for a name, alias or number wins.
+ */
+final class ProtocolsIndex implements ProtocolsDB {
+    static final int MAX_PROTOCOLS = 256;
+
+    private final Protocol[] numberToProto;
+    private final Map<String, Protocol> nameToProto;
+    private final List<Protocol> allProtocols;
+
+    private ProtocolsIndex(Protocol[] numberToProto, Map<String, Protocol> nameToProto, List<Protocol> allProtocols) {
+        this.numberToProto = numberToProto;
+        this.nameToProto = nameToProto;
+        this.allProtocols = allProtocols;
+    }
+
+    /**
+     * Enumerates all the protocols in a DB once, and builds an index of them.
+     *
+     * @param db the DB to enumerate.
+     * @return an index of all the protocols in {@code db}, or {@code db} itself if
+     * it could not be enumerated or returned no protocols.
+     */
+    static ProtocolsDB preload(ProtocolsDB db) {
+        try {
+            ProtocolsIndex index = new Builder().addAll(db.getAllProtocols()).build();
+            return !index.isEmpty() ? index : db;
+
+        } catch (Throwable t) {
+            Logger.getLogger(ProtocolsIndex.class.getName()).log(Level.WARNING, "Failed to preload protocols db", t);
+            return db;
+        }
+    }
+
+    public Protocol getProtocolByName(String name) {
+        return nameToProto.get(name);
+    }
+
+    public Protocol getProtocolByNumber(Integer number) {
+        int n = number;
+        return n >= 0 && n < MAX_PROTOCOLS ? numberToProto[n] : null;
+    }
+
+    public Collection<Protocol> getAllProtocols() {
+        return allProtocols;
+    }
+
+    final boolean isEmpty() {
+        return allProtocols.isEmpty();
+    }
+
+    static final class Builder {
+        private final Protocol[] numberToProto = new Protocol[MAX_PROTOCOLS];
+        private final Map<String, Protocol> nameToProto = new HashMap<String, Protocol>();
+        private final List<Protocol> allProtocols = new ArrayList<Protocol>();
+
+        Builder add(Protocol p) {
+            int n = p.getProto();
+            if (n >= 0 && n < MAX_PROTOCOLS && numberToProto[n] == null) {
+                numberToProto[n] = p;
+            }
+
+            nameToProto.putIfAbsent(p.getName(), p);
+            for (String alias : p.getAliases()) {
+                nameToProto.putIfAbsent(alias, p);
+            }
+            allProtocols.add(p);
+
+            return this;
+        }
+
+        Builder addAll(Iterable<Protocol> protocols) {
+            for (Protocol p : protocols) {
+                add(p);
+            }
+
+            return this;
+        }
+
+        ProtocolsIndex build() {
+            return new ProtocolsIndex(numberToProto, nameToProto, Collections.unmodifiableList(allProtocols));
+        }
+    }
+}
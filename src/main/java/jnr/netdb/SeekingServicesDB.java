@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A low memory services DB, which keeps the services file on disk.
+ *
+ * Instead of {@code Service} objects, only two primitive hash tables are kept on the
+ * heap: one from the hash of each name and alias, and one from each port, to the
+ * offset in the file of the line it is on.  A lookup reads and parses just the lines
+ * the table points to, with a positional read of the open file.  As with a linear
+ * scan of the file, the first matching line wins.
+ *
+ * Each table slot is a {@code long} holding the key in the high 32 bits and the line
+ * offset plus one in the low 32 bits, so an empty slot is zero.  The tables use linear
+ * probing and are never removed from, so entries with the same key are probed in
+ * file order.  Each table is at most half full, so it takes 16 to 32 bytes per key
+ * (e.g. 512 KB in all for a services file of 11,000 lines, or 768 KB if each line
+ * also has an alias).
+ *
+ * The offsets are only valid for the contents the tables were built from.  If the
+ * file has changed size, or a line the tables point to does not hold the name or port
+ * it was indexed under (the file was edited in place), the tables are rebuilt before
+ * the lookup is answered, whether or not the file is watched.
+ */
+final class SeekingServicesDB implements ServicesDB {
+    /** Initial size of the per-thread line buffer; grown for longer lines */
+    private static final int LINE_BUFFER_SIZE = 256;
+
+    /** Only the strings of a single line are pooled during a lookup */
+    private static final int LINE_POOL_SIZE = 16;
+
+    private static final ThreadLocal<ByteBuffer> lineBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(LINE_BUFFER_SIZE);
+        }
+    };
+
+    private final File servicesFile;
+    private volatile Tables tables;
+
+    SeekingServicesDB(File servicesFile) {
+        this.servicesFile = servicesFile;
+        this.tables = Tables.build(servicesFile);
+    }
+
+    File getServicesFile() {
+        return servicesFile;
+    }
+
+    /**
+     * The open file, and the tables of the line offsets in it
+     */
+    private static final class Tables {
+        final FileChannel channel;
+        final long[] names, ports;
+        final int size;
+        final long fileSize;
+
+        Tables(FileChannel channel, long[] names, long[] ports, int size, long fileSize) {
+            this.channel = channel;
+            this.names = names;
+            this.ports = ports;
+            this.size = size;
+            this.fileSize = fileSize;
+        }
+
+        /**
+         * Fails if the file no longer has the size the tables were built for
+         */
+        void checkSize() throws IOException {
+            if (channel.size() != fileSize) {
+                throw new StaleTablesException();
+            }
+        }
+
+        static Tables build(File servicesFile) {
+            FileChannel channel;
+            try {
+                channel = new FileInputStream(servicesFile).getChannel();
+            } catch (FileNotFoundException ex) {
+                return new Tables(null, new long[1], new long[1], 0, -1L);
+            }
+
+            try {
+                long fileSize = channel.size();
+                NetDBTokenizer t = new NetDBTokenizer(NetDBParser.read(channel));
+                NetDBStringPool pool = new NetDBStringPool();
+
+                // Collect the keys and offsets first, so the tables can be sized exactly
+                long[] names = new long[64], ports = new long[64];
+                int nameCount = 0, portCount = 0;
+
+                while (t.nextLine()) {
+                    Service s = FileServicesDB.parseServicesEntry(t, pool);
+                    if (s != null) {
+                        int offset = t.fieldStart(0);
+                        if (nameCount + t.fieldCount() > names.length) {
+                            names = grow(names, nameCount + t.fieldCount());
+                        }
+                        names[nameCount++] = entry(t.hash(t.fieldStart(0), t.fieldEnd(0)), offset);
+                        for (int i = 2; i < t.fieldCount(); i++) {
+                            names[nameCount++] = entry(t.hash(t.fieldStart(i), t.fieldEnd(i)), offset);
+                        }
+
+                        if (portCount == ports.length) {
+                            ports = grow(ports, portCount + 1);
+                        }
+                        ports[portCount++] = entry(s.getPort(), offset);
+                    }
+                }
+
+                return new Tables(channel, table(names, nameCount), table(ports, portCount), portCount, fileSize);
+
+            } catch (IOException ex) {
+                close(channel);
+                throw new RuntimeException(ex);
+
+            } catch (RuntimeException ex) {
+                close(channel);
+                throw ex;
+            }
+        }
+
+        private static long[] grow(long[] a, int minSize) {
+            long[] b = new long[Math.max(a.length * 2, minSize)];
+            System.arraycopy(a, 0, b, 0, a.length);
+            return b;
+        }
+
+        private static long entry(int key, int offset) {
+            return ((long) key << 32) | ((offset + 1) & 0xffffffffL);
+        }
+
+        /**
+         * Builds a linear probing table, at most half full, of entries in file order
+         */
+        private static long[] table(long[] entries, int count) {
+            long[] table = new long[Integer.highestOneBit(Math.max(1, count) * 2 - 1) * 2];
+            int mask = table.length - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = slot(key(entries[i]), mask);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entries[i];
+            }
+
+            return table;
+        }
+    }
+
+    /**
+     * Thrown when the file has changed since the tables were built
+     */
+    private static final class StaleTablesException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static int key(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int offset(long entry) {
+        return (int) entry - 1;
+    }
+
+    private static int slot(int key, int mask) {
+        int h = key * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Rebuilds the tables from the services file.  If the file has no valid entries
+     * (e.g. it has been deleted), the previous tables, and the file they were built
+     * from, are kept.
+     */
+    synchronized void reload() {
+        Tables old = tables;
+        Tables next = Tables.build(servicesFile);
+        if (next.size == 0) {
+            if (next.channel != null) {
+                close(next.channel);
+            }
+            return;
+        }
+
+        tables = next;
+        if (old.channel != null) {
+            close(old.channel);
+        }
+    }
+
+    /**
+     * Replaces tables whose channel has been closed, unless that was already done.
+     */
+    private synchronized void reopen(Tables closed, ClosedChannelException ex) {
+        if (Thread.currentThread().isInterrupted()) {
+            // Any channel would be closed again straight away; leave it to the next thread
+            throw new RuntimeException(ex);
+        }
+
+        if (tables == closed) {
+            tables = Tables.build(servicesFile);
+        }
+    }
+
+    /**
+     * Rebuilds tables that no longer match the file, unless that was already done.
+     */
+    private synchronized void rebuild(Tables stale) {
+        if (tables == stale) {
+            reload();
+        }
+    }
+
+    final boolean isEmpty() {
+        return tables.size == 0;
+    }
+
+    /**
+     * Returns the number of {@code long} table slots kept on the heap
+     */
+    final int tableSize() {
+        Tables t = tables;
+        return t.names.length + t.ports.length;
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        int key = name.hashCode();
+        boolean rebuilt = false;
+        for (;;) {
+            Tables t = tables;
+            try {
+                if (!rebuilt && t.channel != null) {
+                    t.checkSize();
+                }
+
+                int mask = t.names.length - 1;
+                for (int slot = slot(key, mask); t.names[slot] != 0; slot = (slot + 1) & mask) {
+                    long e = t.names[slot];
+                    if (key(e) != key) {
+                        continue;
+                    }
+
+                    NetDBTokenizer line = readLine(t.channel, offset(e));
+                    if (line == null || !hasNameHash(line, key)) {
+                        // The line has changed; once the tables are rebuilt, the file is
+                        // still changing, so just skip it
+                        if (!rebuilt) {
+                            throw new StaleTablesException();
+                        }
+                        continue;
+                    }
+
+                    if (matchesName(line, name) && matchesProto(line, proto)) {
+                        return FileServicesDB.parseServicesEntry(line, new NetDBStringPool(LINE_POOL_SIZE));
+                    }
+                }
+
+                return null;
+
+            } catch (ClosedChannelException ex) {
+                // Either the file was reloaded while reading it, or the channel was closed
+                // because a reading thread was interrupted; retry with reopened tables
+                reopen(t, ex);
+
+            } catch (StaleTablesException ex) {
+                rebuild(t);
+                rebuilt = true;
+
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        int key = port;
+        boolean rebuilt = false;
+        for (;;) {
+            Tables t = tables;
+            try {
+                if (!rebuilt && t.channel != null) {
+                    t.checkSize();
+                }
+
+                int mask = t.ports.length - 1;
+                for (int slot = slot(key, mask); t.ports[slot] != 0; slot = (slot + 1) & mask) {
+                    long e = t.ports[slot];
+                    if (key(e) != key) {
+                        continue;
+                    }
+
+                    NetDBTokenizer line = readLine(t.channel, offset(e));
+                    Service s = line != null ? FileServicesDB.parseServicesEntry(line, new NetDBStringPool(LINE_POOL_SIZE)) : null;
+                    if (s == null || s.getPort() != key) {
+                        if (!rebuilt) {
+                            throw new StaleTablesException();
+                        }
+                        continue;
+                    }
+
+                    if (proto == null || proto.equals(s.proto)) {
+                        return s;
+                    }
+                }
+
+                return null;
+
+            } catch (ClosedChannelException ex) {
+                reopen(t, ex);
+
+            } catch (StaleTablesException ex) {
+                rebuild(t);
+                rebuilt = true;
+
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    public Collection<Service> getAllServices() {
+        Tables t = tables;
+        if (t.channel == null) {
+            return Collections.emptyList();
+        }
+
+        try {
+            NetDBTokenizer tokenizer = new NetDBTokenizer(NetDBParser.read(t.channel));
+            NetDBStringPool pool = new NetDBStringPool();
+            List<Service> allServices = new ArrayList<Service>(t.size);
+            while (tokenizer.nextLine()) {
+                Service s = FileServicesDB.parseServicesEntry(tokenizer, pool);
+                if (s != null) {
+                    allServices.add(s);
+                }
+            }
+
+            return Collections.unmodifiableList(allServices);
+
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads the line starting at {@code offset} into the per-thread buffer.
+     *
+     * @return a tokenizer positioned on the line, or {@code null} if it is not a valid entry.
+     */
+    private static NetDBTokenizer readLine(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buf = lineBuffer.get();
+        buf.clear();
+
+        int end, scanned = 0;
+        for (;;) {
+            int n = channel.read(buf, offset + buf.position());
+            if ((end = indexOfNewline(buf, scanned, buf.position())) >= 0 || n < 0) {
+                break;
+            }
+
+            scanned = buf.position();
+            if (!buf.hasRemaining()) {
+                // The line does not fit; grow the buffer, and read the rest of it
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                bigger.put(buf);
+                lineBuffer.set(buf = bigger);
+            }
+        }
+
+        buf.limit(end >= 0 ? end : buf.position()).position(0);
+        NetDBTokenizer t = new NetDBTokenizer(buf);
+
+        return t.nextLine() ? t : null;
+    }
+
+    private static int indexOfNewline(ByteBuffer buf, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean hasNameHash(NetDBTokenizer t, int hash) {
+        for (int i = 0; i < t.fieldCount(); i = i == 0 ? 2 : i + 1) {
+            if (t.hash(t.fieldStart(i), t.fieldEnd(i)) == hash) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matchesName(NetDBTokenizer t, String name) {
+        for (int i = 0; i < t.fieldCount(); i = i == 0 ? 2 : i + 1) {
+            if (t.regionMatches(t.fieldStart(i), t.fieldEnd(i), name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matchesProto(NetDBTokenizer t, String proto) {
+        if (proto == null) {
+            return true;
+        }
+
+        int dataStart = t.fieldStart(1), dataEnd = t.fieldEnd(1);
+        int slash = t.indexOf(dataStart, dataEnd, (byte) '/');
+        if (slash < 0) {
+            return false;
+        }
+        int protoEnd = t.indexOf(slash + 1, dataEnd, (byte) '/');
+
+        return t.regionMatches(slash + 1, protoEnd < 0 ? dataEnd : protoEnd, proto);
+    }
+}
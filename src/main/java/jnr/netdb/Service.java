@@ -18,13 +18,24 @@
 
 package jnr.netdb;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jnr.netdb.NetDBConfig.Backend;
 
 /**
  * Holds information about TCP and UDP services on a host.
  */
 public final class Service {
+    /** The largest buffer a native lookup has needed, kept here so reading it never loads jnr-ffi */
+    static final AtomicInteger nativeBufferHighWaterMark = new AtomicInteger();
+
     /** Official service name */
     private final String serviceName;
     /** TCP or UDP port number */
@@ -75,6 +86,61 @@ public final class Service {
         return Collections.emptyList();
     }
 
+    /**
+     * Returns the size of the largest buffer a native services lookup has needed.
+     *
+     * The C library functions are called with a 4096 byte buffer, which is grown
+     * and the call retried when an entry (e.g. one with many aliases) does not fit.
+     * Buffers of new threads start at this size.
+     *
+     * @return the largest buffer size in bytes, or 0 if no buffer has had to grow.
+     */
+    public static final int getNativeBufferHighWaterMark() {
+        return nativeBufferHighWaterMark.get();
+    }
+
+    /**
+     * Returns statistics for the service lookup cache.
+     *
+     * Caching is enabled by setting the {@code jnr.netdb.cache.maxSize} system property
+     * to the maximum number of entries, and optionally {@code jnr.netdb.cache.ttl} to the
+     * number of milliseconds entries stay valid for.
+     *
+     * @return a snapshot of the cache statistics, all zero if caching is not enabled.
+     */
+    public static final CacheStats getCacheStats() {
+        ServicesDB db = getCurrentServicesDB();
+        return db instanceof CachingServicesDB ? ((CachingServicesDB) db).getCacheStats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Returns statistics for the cache of service lookups that found nothing.
+     *
+     * Caching of misses is enabled by setting the {@code jnr.netdb.cache.negative.maxSize}
+     * system property to the maximum number of entries, and optionally
+     * {@code jnr.netdb.cache.negative.ttl} to the number of milliseconds entries stay valid for.
+     *
+     * @return a snapshot of the cache statistics, all zero if caching of misses is not enabled.
+     */
+    public static final CacheStats getNegativeCacheStats() {
+        ServicesDB db = getCurrentServicesDB();
+        return db instanceof CachingServicesDB ? ((CachingServicesDB) db).getMissCacheStats() : CacheStats.EMPTY;
+    }
+
+    /**
+     * Returns how the services backend was chosen, when it is chosen adaptively.
+     *
+     * Adaptive selection is enabled by setting the {@code jnr.netdb.adaptive}
+     * system property to true, or with {@link NetDBConfig.Builder#adaptive(boolean)}.
+     *
+     * @return the backend lookups are answered from and the timings behind the choice,
+     * or {@code null} if the backend was not chosen adaptively.
+     */
+    public static final BackendSelection getBackendSelection() {
+        getServicesDB();
+        return ServicesDBSingletonHolder.selection;
+    }
+
     /**
      * Returns the official IANA name of this {@code Service}
      *
@@ -111,23 +177,132 @@ public final class Service {
         return ServicesDBSingletonHolder.INSTANCE;
     }
 
+    /**
+     * Returns the ServicesDB lookups are currently answered from, which may change
+     * once if the native functions are bound in the background
+     */
+    private static final ServicesDB getCurrentServicesDB() {
+        ServicesDB db = getServicesDB();
+        return db instanceof SwappableServicesDB ? ((SwappableServicesDB) db).current() : db;
+    }
+
     /**
      * Holds the global lazily-loaded instance of the ServicesDB
      */
     private static final class ServicesDBSingletonHolder {
+        /** Set while loading, if the backend is chosen adaptively */
+        static BackendSelection selection;
+
         static final ServicesDB INSTANCE = load();
         
         private static final ServicesDB load() {
-            // Try to use the native functions if possible
-            ServicesDB db = NativeServicesDB.load();
+            final NetDBConfig config = NetDBConfig.current();
+
+            // Optionally answer lookups from a snapshot saved by an earlier JVM
+            ServicesDB db = ServicesSnapshotFile.load(config);
+            if (db != null) {
+                return CachingServicesDB.wrap(db, config);
+            }
+
+            // Optionally time every usable backend, and use the fastest
+            List<Backend> backends = config.getServicesBackends();
+            if (config.isAdaptive()) {
+                return CachingServicesDB.wrap(select(config, backends), config);
+            }
+
+            // Optionally bind the native functions on a background thread, and answer
+            // lookups from the next backends until they are ready
+            if (config.isNativeAsync() && !backends.isEmpty() && backends.get(0) == Backend.NATIVE) {
+                ServicesDB fallback = resolve(config, backends.subList(1, backends.size()), false);
+                return SwappableServicesDB.swapInBackground(CachingServicesDB.wrap(fallback, config), new Callable<ServicesDB>() {
+                    public ServicesDB call() {
+                        ServicesDB db = open(Backend.NATIVE, config, config.isWatch());
+                        return db != null ? CachingServicesDB.wrap(ServicesSnapshotFile.save(db, config), config) : null;
+                    }
+                });
+            }
+
+            // Optionally cache lookups in front of whichever DB was chosen
+            return CachingServicesDB.wrap(resolve(config, backends, true), config);
+        }
+
+        /**
+         * Returns the first of the backends that can be used, optionally saving it to the snapshot file
+         */
+        private static final ServicesDB resolve(NetDBConfig config, List<Backend> backends, boolean save) {
+            for (Backend backend : backends) {
+                ServicesDB db = open(backend, config, config.isWatch());
+                if (db != null) {
+                    // The hard coded table is not worth saving
+                    return save && backend != Backend.IANA ? ServicesSnapshotFile.save(db, config) : db;
+                }
+            }
+
+            // None of the backends can be used, so nothing will be found
+            return new ServicesIndex.Builder().build();
+        }
+
+        /**
+         * Opens every usable backend, and returns the fastest of those that agree with the first
+         */
+        private static final ServicesDB select(NetDBConfig config, List<Backend> backends) {
+            Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+            for (Backend backend : backends) {
+                // Only the chosen backend is watched, as the others are dropped
+                ServicesDB db = open(backend, config, false);
+                if (db != null) {
+                    candidates.put(backend, db);
+                }
+            }
 
-            // Fall back to parsing /etc/services directly.
-            if (db == null) {
-                db = FileServicesDB.getInstance();
+            if (candidates.isEmpty()) {
+                return new ServicesIndex.Builder().build();
             }
 
-            // As a last resort, fall back to the hard coded table
-            return db != null ? db : IANAServicesDB.getInstance();
+            selection = BackendSelector.selectServices(candidates, config.getAdaptiveBudgetMillis());
+            Backend backend = selection.getBackend();
+            ServicesDB db = candidates.get(backend);
+            if (config.isWatch()) {
+                FileServicesDB.watch(db);
+            }
+
+            // The hard coded table is not worth saving
+            return backend != Backend.IANA ? ServicesSnapshotFile.save(db, config) : db;
+        }
+
+        /**
+         * Tests if nsswitch.conf only lists files as the source of services
+         */
+        private static final boolean isFilesOnly(NetDBConfig config) {
+            NsSwitchConf nsswitch = config.isNsSwitch() ? NsSwitchConf.load(new File(NsSwitchConf.fileName)) : null;
+            return nsswitch != null && nsswitch.isFilesOnly("services");
+        }
+
+        private static final ServicesDB open(Backend backend, NetDBConfig config, boolean watch) {
+            switch (backend) {
+                case NATIVE:
+                    // The C library would only scan /etc/services, whatever the services file of
+                    // the FILE backend is, so index that here instead.  It is only watched
+                    // if configured, where the C library reads it again on every lookup
+                    ServicesDB db = isFilesOnly(config)
+                            ? FileServicesDB.load(new File(FileServicesDB.fileName), config.isFileLowMemory(), watch) : null;
+                    if (db != null) {
+                        return db;
+                    }
+
+                    // Optionally enumerate the native DB once, and answer all lookups from memory
+                    db = NativeServicesDB.load();
+                    return db != null && config.isPreload() ? ServicesIndex.preload(db) : db;
+
+                case FILE:
+                    return FileServicesDB.load(config.getServicesFile(), config.isFileLowMemory(), watch);
+
+                case IANA:
+                    return IANAServicesDB.getInstance();
+
+                default:
+                    return null;
+            }
         }
     }
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable, in-memory index of services.
+ *
+ * Lookups follow the same rules as a linear scan of /etc/services: the first
+ * entry (in insertion order) whose name or alias matches wins, and a proto of
+ * {@code null} matches any protocol.
+ */
+final class ServicesIndex implements ServicesDB {
+    private final Map<String, ProtoIndex> protoIndexes;
+    private final ProtoIndex anyProto;
+    private final List<Service> allServices;
+
+    private ServicesIndex(Map<String, ProtoIndex> protoIndexes, ProtoIndex anyProto, List<Service> allServices) {
+        this.protoIndexes = protoIndexes;
+        this.anyProto = anyProto;
+        this.allServices = allServices;
+    }
+
+    /**
+     * Name and port indexes for a single protocol
+     */
+    private static final class ProtoIndex {
+        final Map<String, Service> nameToService = new HashMap<String, Service>();
+        final Map<Integer, Service> portToService = new HashMap<Integer, Service>();
+
+        void add(Service s) {
+            nameToService.putIfAbsent(s.getName(), s);
+            for (String alias : s.getAliases()) {
+                nameToService.putIfAbsent(alias, s);
+            }
+            portToService.putIfAbsent(s.getPort(), s);
+        }
+    }
+
+    /**
+     * Enumerates all the services in a DB once, and builds an index of them.
+     *
+     * @param db the DB to enumerate.
+     * @return an index of all the services in {@code db}, or {@code db} itself if
+     * it could not be enumerated or returned no services.
+     */
+    static ServicesDB preload(ServicesDB db) {
+        try {
+            ServicesIndex index = new Builder().addAll(db.getAllServices()).build();
+            return !index.isEmpty() ? index : db;
+
+        } catch (Throwable t) {
+            Logger.getLogger(ServicesIndex.class.getName()).log(Level.WARNING, "Failed to preload services db", t);
+            return db;
+        }
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        ProtoIndex idx = proto != null ? protoIndexes.get(proto) : anyProto;
+        return idx != null ? idx.nameToService.get(name) : null;
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        ProtoIndex idx = proto != null ? protoIndexes.get(proto) : anyProto;
+        return idx != null ? idx.portToService.get(port) : null;
+    }
+
+    public List<Service> getAllServices() {
+        return allServices;
+    }
+
+    final boolean isEmpty() {
+        return allServices.isEmpty();
+    }
+
+    static final class Builder {
+        private final Map<String, ProtoIndex> protoIndexes = new HashMap<String, ProtoIndex>();
+        private final ProtoIndex anyProto = new ProtoIndex();
+        private final List<Service> allServices = new ArrayList<Service>();
+
+        Builder add(Service s) {
+            ProtoIndex idx = protoIndexes.get(s.proto);
+            if (idx == null) {
+                protoIndexes.put(s.proto, idx = new ProtoIndex());
+            }
+            idx.add(s);
+            anyProto.add(s);
+            allServices.add(s);
+
+            return this;
+        }
+
+        Builder addAll(Iterable<Service> services) {
+            for (Service s : services) {
+                add(s);
+            }
+
+            return this;
+        }
+
+        ServicesIndex build() {
+            return new ServicesIndex(protoIndexes, anyProto, Collections.unmodifiableList(allServices));
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * An immutable, in-memory index of a services file, which can be updated
+ * incrementally when the file changes.
+ *
+ * The index is made of segments, each covering a range of lines of the file, and
+ * remembering a checksum of those bytes.  When the file is reloaded, the leading
+ * segments whose bytes are unchanged are shared with the new snapshot as-is, and
+ * only the rest of the file is parsed again.  Lines that were parsed before are
+ * recognised by their hash, so their {@code Service} objects are reused instead of
+ * being created again.  Appending lines to the file, the usual way it is edited,
+ * therefore costs time and memory in proportion to the appended lines.
+ *
+ * Big files are parsed in parallel chunks, and the services of all the chunks are
+ * then indexed in file order.
+ *
+ * Small trailing segments are merged into each other so that the number of
+ * segments, and so the cost of a lookup, stays low.
+ */
+final class ServicesSnapshot implements ServicesDB {
+    private static final int MAX_SEGMENTS = 8;
+
+    /** Files bigger than this are split into chunks of about this size, and parsed in parallel */
+    private static final int PARALLEL_CHUNK_SIZE = 256 * 1024;
+
+    private final Segment[] segments;
+    private final List<Service> allServices;
+
+    private ServicesSnapshot(List<Segment> segments) {
+        this.segments = segments.toArray(new Segment[segments.size()]);
+        this.allServices = new AllServices(this.segments);
+    }
+
+    /**
+     * The services parsed from the lines in {@code [start, end)} of the file
+     */
+    private static final class Segment {
+        final int start, end;
+        final long checksum;
+        final ServicesIndex index;
+
+        /** The hashes of the lines each service was parsed from, in the same order as the index */
+        final int[] lineHashes;
+
+        Segment(int start, int end, long checksum, ServicesIndex index, int[] lineHashes) {
+            this.start = start;
+            this.end = end;
+            this.checksum = checksum;
+            this.index = index;
+            this.lineHashes = lineHashes;
+        }
+
+        int size() {
+            return lineHashes.length;
+        }
+    }
+
+    /**
+     * Loads a services file.
+     *
+     * @param file the file to load.
+     * @param previous a snapshot of an earlier version of the file to share unchanged entries with, or {@code null}.
+     * @return a snapshot of the file, or {@code previous} itself if the file has not changed.
+     */
+    static ServicesSnapshot load(File file, ServicesSnapshot previous) {
+        return load(file, previous, ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_CHUNK_SIZE : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Loads a services file, parsing parts bigger than {@code chunkSize} bytes in parallel.
+     */
+    static ServicesSnapshot load(File file, ServicesSnapshot previous, int chunkSize) {
+        ByteBuffer buf;
+        try {
+            buf = NetDBParser.readFile(file);
+        } catch (FileNotFoundException ex) {
+            return new ServicesSnapshot(new ArrayList<Segment>());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        int length = buf.limit();
+        List<Segment> segments = new ArrayList<Segment>();
+        int parseFrom = 0;
+
+        if (previous != null) {
+            for (Segment seg : previous.segments) {
+                // A segment that ends without a newline may have had its last line extended
+                boolean lineComplete = seg.end == length || (seg.end < length && seg.end > 0 && buf.get(seg.end - 1) == '\n');
+                if (!lineComplete || checksum(buf, seg.start, seg.end) != seg.checksum) {
+                    break;
+                }
+                segments.add(seg);
+                parseFrom = seg.end;
+            }
+
+            if (segments.size() == previous.segments.length && parseFrom == length) {
+                return previous;
+            }
+        }
+
+        Segment tail = parse(buf, parseFrom, length, reusableServices(previous, segments.size()), chunkSize);
+
+        // Merge trailing segments which are not much bigger than the new one, so there are only ever a few segments
+        while (!segments.isEmpty()
+                && (segments.size() >= MAX_SEGMENTS || segments.get(segments.size() - 1).size() <= tail.size() * 2)) {
+            tail = merge(buf, segments.remove(segments.size() - 1), tail);
+        }
+
+        if (tail.end > tail.start || segments.isEmpty()) {
+            segments.add(tail);
+        }
+
+        return new ServicesSnapshot(segments);
+    }
+
+    /**
+     * Collects the services from the segments of a snapshot which are not being kept, keyed by line hash
+     */
+    private static Map<Integer, Service> reusableServices(ServicesSnapshot previous, int firstDropped) {
+        Map<Integer, Service> services = new HashMap<Integer, Service>();
+        if (previous == null) {
+            return services;
+        }
+
+        for (int i = firstDropped; i < previous.segments.length; i++) {
+            Segment seg = previous.segments[i];
+            List<Service> segmentServices = seg.index.getAllServices();
+            for (int j = 0; j < seg.lineHashes.length; j++) {
+                services.putIfAbsent(seg.lineHashes[j], segmentServices.get(j));
+            }
+        }
+
+        return services;
+    }
+
+    private static Segment parse(ByteBuffer buf, int start, int end, Map<Integer, Service> reusable, int chunkSize) {
+        ByteBuffer region = buf.duplicate();
+        region.limit(end).position(start);
+
+        Partial p = end - start > chunkSize
+                ? ForkJoinPool.commonPool().invoke(new ParseTask(new NetDBSpliterator(region), reusable, chunkSize))
+                : parse(region, start, end, reusable);
+
+        int[] hashes = new int[p.count];
+        System.arraycopy(p.lineHashes, 0, hashes, 0, p.count);
+
+        return new Segment(start, end, checksum(buf, start, end), new ServicesIndex.Builder().addAll(p.services).build(), hashes);
+    }
+
+    private static Partial parse(ByteBuffer buf, int start, int end, Map<Integer, Service> reusable) {
+        ByteBuffer region = buf.duplicate();
+        region.limit(end).position(start);
+
+        NetDBTokenizer t = new NetDBTokenizer(region);
+        NetDBStringPool pool = new NetDBStringPool();
+        Partial p = new Partial();
+
+        try {
+            while (t.nextLine()) {
+                int lineHash = t.hash(t.fieldStart(0), t.fieldEnd(t.fieldCount() - 1));
+                Service s = reusable.get(lineHash);
+                if (s == null || !FileServicesDB.matchesServicesEntry(t, s)) {
+                    s = FileServicesDB.parseServicesEntry(t, pool);
+                }
+
+                if (s != null) {
+                    p.add(s, lineHash);
+                }
+            }
+
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return p;
+    }
+
+    /**
+     * The services parsed from a part of a segment, in file order
+     */
+    private static final class Partial {
+        List<Service> services = new ArrayList<Service>();
+        int[] lineHashes = new int[64];
+        int count;
+
+        void add(Service s, int lineHash) {
+            if (count == lineHashes.length) {
+                int[] newHashes = new int[count * 2];
+                System.arraycopy(lineHashes, 0, newHashes, 0, count);
+                lineHashes = newHashes;
+            }
+            lineHashes[count++] = lineHash;
+            services.add(s);
+        }
+
+        Partial append(Partial later) {
+            if (lineHashes.length - count < later.count) {
+                int[] newHashes = new int[count + later.count];
+                System.arraycopy(lineHashes, 0, newHashes, 0, count);
+                lineHashes = newHashes;
+            }
+            System.arraycopy(later.lineHashes, 0, lineHashes, count, later.count);
+            count += later.count;
+            services.addAll(later.services);
+
+            return this;
+        }
+    }
+
+    /**
+     * Parses a large part of a file by splitting it at line boundaries, parsing the
+     * chunks in parallel, and joining the parsed services back together in file order.
+     */
+    private static final class ParseTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final NetDBSpliterator lines;
+        private final Map<Integer, Service> reusable;
+        private final int chunkSize;
+
+        ParseTask(NetDBSpliterator lines, Map<Integer, Service> reusable, int chunkSize) {
+            this.lines = lines;
+            this.reusable = reusable;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Partial compute() {
+            NetDBSpliterator prefix = lines.end() - lines.start() > chunkSize ? lines.trySplit() : null;
+            if (prefix == null) {
+                return parse(lines.buffer(), lines.start(), lines.end(), reusable);
+            }
+
+            ParseTask first = new ParseTask(prefix, reusable, chunkSize);
+            first.fork();
+            Partial second = compute();
+
+            return first.join().append(second);
+        }
+    }
+
+    private static Segment merge(ByteBuffer buf, Segment first, Segment second) {
+        ServicesIndex index = new ServicesIndex.Builder()
+                .addAll(first.index.getAllServices())
+                .addAll(second.index.getAllServices())
+                .build();
+
+        int[] hashes = new int[first.size() + second.size()];
+        System.arraycopy(first.lineHashes, 0, hashes, 0, first.size());
+        System.arraycopy(second.lineHashes, 0, hashes, first.size(), second.size());
+
+        return new Segment(first.start, second.end, checksum(buf, first.start, second.end), index, hashes);
+    }
+
+    private static long checksum(ByteBuffer buf, int start, int end) {
+        ByteBuffer region = buf.duplicate();
+        region.limit(end).position(start);
+        CRC32 crc = new CRC32();
+        crc.update(region);
+
+        return crc.getValue();
+    }
+
+    final int segmentCount() {
+        return segments.length;
+    }
+
+    final boolean isEmpty() {
+        return allServices.isEmpty();
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        for (Segment seg : segments) {
+            Service s = seg.index.getServiceByName(name, proto);
+            if (s != null) {
+                return s;
+            }
+        }
+
+        return null;
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        for (Segment seg : segments) {
+            Service s = seg.index.getServiceByPort(port, proto);
+            if (s != null) {
+                return s;
+            }
+        }
+
+        return null;
+    }
+
+    public Collection<Service> getAllServices() {
+        return allServices;
+    }
+
+    /**
+     * A read-only view of the services of all the segments, in file order
+     */
+    private static final class AllServices extends AbstractList<Service> {
+        private final Segment[] segments;
+        private final int size;
+
+        AllServices(Segment[] segments) {
+            this.segments = segments;
+            int n = 0;
+            for (Segment seg : segments) {
+                n += seg.size();
+            }
+            this.size = n;
+        }
+
+        @Override
+        public Service get(int idx) {
+            if (idx < 0 || idx >= size) {
+                throw new IndexOutOfBoundsException(String.valueOf(idx));
+            }
+
+            for (Segment seg : segments) {
+                if (idx < seg.size()) {
+                    return (seg.index.getAllServices()).get(idx);
+                }
+                idx -= seg.size();
+            }
+
+            throw new IndexOutOfBoundsException(String.valueOf(idx));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jnr.netdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import jnr.netdb.NetDBConfig.Backend;
+
+/**
+ * A services DB saved to disk, so that later JVMs can load it without probing
+ * the native functions or parsing /etc/services again.
+ *
+ * The snapshot records the settings that chose the backend, and the size and a
+ * CRC-32 of the contents of the files the services came from, and is only used
+ * while all of those are unchanged.  Modification times are not used, as a file
+ * can be rewritten within their granularity, and touching a file does not change
+ * the services.  It is laid out as:
+ *
+ * <pre>
+ *   int     magic, short version
+ *   int     CRC-32 of the rest of the file
+ *   the settings
+ *   int     number of source files, then for each: the path, long size, long CRC-32
+ *   then a {@link MappedServicesDB} index of the services
+ * </pre>
+ *
+ * Strings are written as a char length followed by UTF-8 bytes.  The file is memory
+ * mapped and lookups are answered from the mapping, so every JVM on a host that
+ * uses the same snapshot shares one copy of it.  Lookups follow the same rules
+ * as in the jnr.netdb.preload mode.
+ */
+final class ServicesSnapshotFile {
+    static final int MAGIC = 0x4e455453;
+    static final short VERSION = 4;
+
+    /** Size of the magic, version and checksum */
+    private static final int HEADER_SIZE = 10;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ServicesSnapshotFile() {
+    }
+
+    /**
+     * Returns the settings that decide which backend the services DB is resolved from
+     */
+    static String getSettings(NetDBConfig config) {
+        return "backends=" + config.getServicesBackends()
+                + " preload=" + config.isPreload()
+                + " nsswitch=" + config.isNsSwitch()
+                + " adaptive=" + config.isAdaptive();
+    }
+
+    /**
+     * Returns the files the services DB may be resolved from, i.e. those read
+     * by the configured backends
+     */
+    static File[] getSourceFiles(NetDBConfig config) {
+        List<Backend> backends = config.getServicesBackends();
+        Set<File> files = new LinkedHashSet<File>();
+        if (backends.contains(Backend.NATIVE)) {
+            // The C library, or the nsswitch.conf fast path, reads /etc/services
+            files.add(new File(FileServicesDB.fileName));
+            files.add(new File(NsSwitchConf.fileName));
+        }
+        if (backends.contains(Backend.FILE)) {
+            files.add(config.getServicesFile());
+        }
+
+        return files.toArray(new File[files.size()]);
+    }
+
+    /**
+     * Loads the snapshot file of a configuration.
+     *
+     * @return the services in the snapshot, or {@code null} if snapshots are not
+     * enabled, or the snapshot is missing, corrupt or out of date.
+     */
+    static ServicesDB load(NetDBConfig config) {
+        File file = config.getSnapshotFile();
+        return file != null ? read(file, getSettings(config), getSourceFiles(config)) : null;
+    }
+
+    /**
+     * Saves all the services in a DB to the snapshot file of a configuration, if
+     * it has one.  Failures are logged, and otherwise ignored.
+     *
+     * @param db the DB to save.
+     * @return {@code db}
+     */
+    static ServicesDB save(ServicesDB db, NetDBConfig config) {
+        File file = config.getSnapshotFile();
+        if (file == null) {
+            return db;
+        }
+
+        try {
+            Collection<Service> services = db.getAllServices();
+            if (!services.isEmpty()) {
+                write(file, services, getSettings(config), getSourceFiles(config));
+            }
+
+        } catch (Throwable t) {
+            Logger.getLogger(ServicesSnapshotFile.class.getName()).log(Level.WARNING, "Failed to save services snapshot " + file, t);
+        }
+
+        return db;
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param file the snapshot file.
+     * @param settings the settings the snapshot must have been made with.
+     * @param sources the files the snapshot must have been made from.
+     * @return the services in the snapshot, or {@code null} if it is
+     * missing, corrupt, empty, was made with other settings, or any of its
+     * sources has changed or cannot be checked.
+     */
+    static ServicesDB read(File file, String settings, File[] sources) {
+        ByteBuffer buf;
+        try {
+            buf = NetDBParser.mapFile(file);
+        } catch (FileNotFoundException ex) {
+            return null;
+        } catch (IOException ex) {
+            Logger.getLogger(ServicesSnapshotFile.class.getName()).log(Level.FINE, "cannot read services snapshot " + file, ex);
+            return null;
+        }
+
+        try {
+            if (buf.limit() < HEADER_SIZE || buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+                return null;
+            }
+
+            int checksum = buf.getInt();
+            if (checksum(buf, HEADER_SIZE, buf.limit()) != checksum) {
+                return null;
+            }
+
+            if (!settings.equals(readString(buf))) {
+                return null;
+            }
+
+            int sourceCount = buf.getInt();
+            if (sourceCount != sources.length) {
+                return null;
+            }
+            for (File source : sources) {
+                // Compare the sizes first, to avoid reading a file that has obviously changed
+                if (!source.getPath().equals(readString(buf))
+                        || buf.getLong() != length(source) || buf.getLong() != contentChecksum(source)) {
+                    return null;
+                }
+            }
+
+            MappedServicesDB db = new MappedServicesDB(buf, buf.position());
+            return !db.isEmpty() ? db : null;
+
+        } catch (Throwable t) {
+            // Whatever went wrong, the snapshot cannot be trusted, so resolve the DB again
+            Logger.getLogger(ServicesSnapshotFile.class.getName()).log(Level.FINE, "cannot use services snapshot " + file, t);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot.  The file is replaced atomically where the filesystem
+     * allows it, so other JVMs never see a partially written snapshot.
+     *
+     * @param file the snapshot file.
+     * @param services the services to save.
+     * @param settings the settings the services were resolved with.
+     * @param sources the files the services were loaded from.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    static void write(File file, Collection<Service> services, String settings, File[] sources) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(0);
+
+        writeString(out, settings);
+        out.writeInt(sources.length);
+        for (File source : sources) {
+            writeString(out, source.getPath());
+            out.writeLong(length(source));
+            out.writeLong(contentChecksum(source));
+        }
+
+        out.write(MappedServicesDB.write(services, out.size()));
+        out.close();
+
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        buf.putInt(HEADER_SIZE - 4, checksum(buf, HEADER_SIZE, buf.limit()));
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            FileOutputStream fos = new FileOutputStream(tmp);
+            try {
+                fos.write(buf.array(), 0, buf.limit());
+            } finally {
+                fos.close();
+            }
+
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static long length(File f) {
+        return f.exists() ? f.length() : -1L;
+    }
+
+    /**
+     * Returns the CRC-32 of the contents of a file, or -1 if it cannot be read
+     */
+    private static long contentChecksum(File f) {
+        try {
+            ByteBuffer buf = NetDBParser.readFile(f);
+            return checksum(buf, 0, buf.limit()) & 0xffffffffL;
+
+        } catch (IOException ex) {
+            return -1L;
+        }
+    }
+
+    private static int checksum(ByteBuffer buf, int start, int end) {
+        ByteBuffer region = buf.duplicate();
+        region.limit(end).position(start);
+        CRC32 crc = new CRC32();
+        crc.update(region);
+
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        if (bytes.length > Character.MAX_VALUE) {
+            throw new IOException("string too long");
+        }
+        out.writeChar(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getChar()];
+        buf.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
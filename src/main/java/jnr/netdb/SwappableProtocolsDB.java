@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Answers lookups from one {@link ProtocolsDB} until another one, loaded on a
+ * background thread, is ready, and then switches to it.
+ *
+ * This lets the first lookups be answered from /etc/protocols or the built-in
+ * table straight away, instead of waiting for the native functions to be bound
+ * and probed.  The switch is a single volatile write, so each lookup sees either
+ * the old DB or the new one, never a mix.
+ */
+final class SwappableProtocolsDB implements ProtocolsDB {
+    private volatile ProtocolsDB db;
+
+    SwappableProtocolsDB(ProtocolsDB db) {
+        this.db = db;
+    }
+
+    /**
+     * Answers lookups from {@code initial} until {@code loader}, run on a new daemon
+     * thread, returns a DB to switch to.
+     *
+     * @param initial the DB to use until the other is loaded.
+     * @param loader loads the DB to switch to, or returns {@code null} to keep {@code initial}.
+     * @return a new {@code SwappableProtocolsDB}
+     */
+    static SwappableProtocolsDB swapInBackground(ProtocolsDB initial, final Callable<ProtocolsDB> loader) {
+        final SwappableProtocolsDB swappable = new SwappableProtocolsDB(initial);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    ProtocolsDB loaded = loader.call();
+                    if (loaded != null) {
+                        swappable.swap(loaded);
+                    }
+
+                } catch (Throwable t) {
+                    Logger.getLogger(SwappableProtocolsDB.class.getName()).log(Level.WARNING, "Failed to load protocols db", t);
+                }
+            }
+        }, "jnr-netdb-protocols-loader");
+        thread.setDaemon(true);
+        thread.start();
+
+        return swappable;
+    }
+
+    void swap(ProtocolsDB db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the DB lookups are currently answered from
+     */
+    ProtocolsDB current() {
+        return db;
+    }
+
+    public Protocol getProtocolByName(String name) {
+        return db.getProtocolByName(name);
+    }
+
+    public Protocol getProtocolByNumber(Integer number) {
+        return db.getProtocolByNumber(number);
+    }
+
+    public Collection<Protocol> getAllProtocols() {
+        return db.getAllProtocols();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010 Wayne Meissner
+ *
+ * This file is part of jnr.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jnr.netdb;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Answers lookups from one {@link ServicesDB} until another one, loaded on a
+ * background thread, is ready, and then switches to it.
+ *
+ * This lets the first lookups be answered from /etc/services or the built-in
+ * table straight away, instead of waiting for the native functions to be bound
+ * and probed.  The switch is a single volatile write, so each lookup sees either
+ * the old DB or the new one, never a mix.
+ */
+final class SwappableServicesDB implements ServicesDB {
+    private volatile ServicesDB db;
+
+    SwappableServicesDB(ServicesDB db) {
+        this.db = db;
+    }
+
+    /**
+     * Answers lookups from {@code initial} until {@code loader}, run on a new daemon
+     * thread, returns a DB to switch to.
+     *
+     * @param initial the DB to use until the other is loaded.
+     * @param loader loads the DB to switch to, or returns {@code null} to keep {@code initial}.
+     * @return a new {@code SwappableServicesDB}
+     */
+    static SwappableServicesDB swapInBackground(ServicesDB initial, final Callable<ServicesDB> loader) {
+        final SwappableServicesDB swappable = new SwappableServicesDB(initial);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    ServicesDB loaded = loader.call();
+                    if (loaded != null) {
+                        swappable.swap(loaded);
+                    }
+
+                } catch (Throwable t) {
+                    Logger.getLogger(SwappableServicesDB.class.getName()).log(Level.WARNING, "Failed to load services db", t);
+                }
+            }
+        }, "jnr-netdb-services-loader");
+        thread.setDaemon(true);
+        thread.start();
+
+        return swappable;
+    }
+
+    void swap(ServicesDB db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the DB lookups are currently answered from
+     */
+    ServicesDB current() {
+        return db;
+    }
+
+    public Service getServiceByName(String name, String proto) {
+        return db.getServiceByName(name, proto);
+    }
+
+    public Service getServiceByPort(Integer port, String proto) {
+        return db.getServiceByPort(port, proto);
+    }
+
+    public Collection<Service> getAllServices() {
+        return db.getAllServices();
+    }
+}
@@ -0,0 +1,168 @@
+package jnr.netdb;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jnr.netdb.NetDBConfig.Backend;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class BackendSelectorTest {
+
+    public BackendSelectorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static ServicesDB services(Service... services) {
+        return new ServicesIndex.Builder().addAll(Arrays.asList(services)).build();
+    }
+
+    private static Service service(String name, int port, String proto) {
+        return new Service(name, port, proto, Collections.<String>emptyList());
+    }
+
+    private static void spin(long nanos) {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < nanos) {
+        }
+    }
+
+    /**
+     * Answers like another DB, but takes a fixed time per lookup, and cannot be enumerated
+     */
+    private static final class SlowServicesDB implements ServicesDB {
+        private final ServicesDB db;
+        private final long nanos;
+
+        SlowServicesDB(ServicesDB db, long nanos) {
+            this.db = db;
+            this.nanos = nanos;
+        }
+
+        SlowServicesDB(ServicesDB db) {
+            this(db, 50000);
+        }
+
+        public Service getServiceByName(String name, String proto) {
+            spin(nanos);
+            return db.getServiceByName(name, proto);
+        }
+
+        public Service getServiceByPort(Integer port, String proto) {
+            spin(nanos);
+            return db.getServiceByPort(port, proto);
+        }
+
+        public Collection<Service> getAllServices() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test public void choosesFastestConsistentServicesDB() {
+        Service[] entries = { service("ssh", 22, "tcp"), service("domain", 53, "udp"), service("http", 80, "tcp") };
+        Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+        candidates.put(Backend.NATIVE, new SlowServicesDB(services(entries)));
+        candidates.put(Backend.FILE, services(entries));
+        candidates.put(Backend.IANA, services(service("ssh", 22, "tcp"), service("domain", 53, "tcp")));
+
+        BackendSelection selection = BackendSelector.selectServices(candidates, 100);
+        assertEquals(Backend.FILE, selection.getBackend());
+        assertEquals(Collections.singleton(Backend.IANA), selection.getInconsistentBackends());
+        assertEquals(Arrays.asList(Backend.NATIVE, Backend.FILE), Arrays.asList(selection.getNanosPerLookup().keySet().toArray()));
+        assertTrue(selection.getNanosPerLookup().get(Backend.NATIVE) > selection.getNanosPerLookup().get(Backend.FILE));
+    }
+
+    @Test public void keepsFirstServicesDBIfOthersDisagree() {
+        Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+        candidates.put(Backend.NATIVE, new SlowServicesDB(services(service("ssh", 22, "tcp"))));
+        candidates.put(Backend.FILE, services(service("ssh", 2222, "tcp")));
+
+        BackendSelection selection = BackendSelector.selectServices(candidates, 100);
+        assertEquals(Backend.NATIVE, selection.getBackend());
+        assertEquals(Collections.singleton(Backend.FILE), selection.getInconsistentBackends());
+    }
+
+    @Test public void leavesOutServicesDBThatFails() {
+        Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+        candidates.put(Backend.NATIVE, new ServicesDB() {
+            public Service getServiceByName(String name, String proto) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Service getServiceByPort(Integer port, String proto) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Collection<Service> getAllServices() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        candidates.put(Backend.FILE, services(service("ssh", 22, "tcp")));
+
+        BackendSelection selection = BackendSelector.selectServices(candidates, 0);
+        assertEquals(Backend.FILE, selection.getBackend());
+        assertEquals(Collections.singleton(Backend.NATIVE), selection.getInconsistentBackends());
+    }
+
+    @Test public void leavesOutServicesDBThatRunsOutOfTime() {
+        Service[] entries = { service("ssh", 22, "tcp") };
+        Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+        candidates.put(Backend.NATIVE, services(entries));
+        candidates.put(Backend.FILE, new SlowServicesDB(services(entries), 100000000L));
+
+        long start = System.nanoTime();
+        BackendSelection selection = BackendSelector.selectServices(candidates, 20);
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertEquals(Backend.NATIVE, selection.getBackend());
+        assertEquals(Collections.singleton(Backend.NATIVE), selection.getNanosPerLookup().keySet());
+        assertTrue(selection.getInconsistentBackends().isEmpty());
+    }
+
+    @Test public void keepsFirstServicesDBIfItRunsOutOfTime() {
+        Service[] entries = { service("ssh", 22, "tcp") };
+        Map<Backend, ServicesDB> candidates = new LinkedHashMap<Backend, ServicesDB>();
+        candidates.put(Backend.NATIVE, new SlowServicesDB(services(entries), 100000000L));
+        candidates.put(Backend.FILE, services(entries));
+
+        long start = System.nanoTime();
+        BackendSelection selection = BackendSelector.selectServices(candidates, 20);
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertEquals(Backend.NATIVE, selection.getBackend());
+        assertTrue(selection.getNanosPerLookup().isEmpty());
+    }
+
+    @Test public void choosesBetweenProtocolsDBs() {
+        Map<Backend, ProtocolsDB> candidates = new LinkedHashMap<Backend, ProtocolsDB>();
+        candidates.put(Backend.FILE, FileProtocolsDB.getInstance());
+        candidates.put(Backend.IANA, IANAProtocolsDB.getInstance());
+
+        BackendSelection selection = BackendSelector.selectProtocols(candidates, 100);
+        assertTrue(selection.getNanosPerLookup().containsKey(Backend.FILE));
+        assertTrue(selection.getNanosPerLookup().containsKey(selection.getBackend()));
+    }
+}
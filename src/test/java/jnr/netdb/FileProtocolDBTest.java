@@ -1,18 +1,27 @@
 
 package jnr.netdb;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
 
 /**
  *
  */
 public class FileProtocolDBTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public FileProtocolDBTest() {
     }
 
@@ -62,4 +71,59 @@ public class FileProtocolDBTest {
             assertEquals("incorrect name", "ipv4", p.getName());
         }
     }
+
+    private File writeProtocolsFile(String... lines) throws IOException {
+        return writeLines(folder.newFile("protocols"), lines);
+    }
+
+    @Test public void canLookupProtocolsFromFile() throws IOException {
+        ProtocolsDB db = new FileProtocolsDB(writeProtocolsFile(
+                "# comment line",
+                "tcp\t6\tTCP\t\t# transmission control protocol",
+                "udp\t17\tUDP",
+                "tcp-again\t6\tTCP",
+                "divert\t254\tDIVERT",
+                "bogus\tabc\tBOGUS"));
+
+        assertEquals("tcp", db.getProtocolByNumber(6).getName());
+        assertEquals("tcp", db.getProtocolByName("TCP").getName());
+        assertEquals(17, db.getProtocolByName("udp").getProto());
+        assertEquals("divert", db.getProtocolByNumber(254).getName());
+        assertEquals(4, db.getAllProtocols().size());
+    }
+
+    @Test public void returnsNullOnUnknownProtocol() throws IOException {
+        ProtocolsDB db = new FileProtocolsDB(writeProtocolsFile("tcp\t6\tTCP"));
+
+        assertNull(db.getProtocolByName("udp"));
+        assertNull(db.getProtocolByName("bogus"));
+        assertNull(db.getProtocolByNumber(17));
+        assertNull(db.getProtocolByNumber(-1));
+        assertNull(db.getProtocolByNumber(256));
+    }
+
+    @Test public void reloadKeepsIndexWhenFileIsEmptied() throws IOException {
+        File f = writeProtocolsFile("tcp\t6\tTCP");
+        FileProtocolsDB db = new FileProtocolsDB(f);
+
+        writeLines(f);
+        db.reload();
+        assertEquals("tcp", db.getProtocolByNumber(6).getName());
+
+        assertTrue(f.delete());
+        db.reload();
+        assertEquals(1, db.getAllProtocols().size());
+    }
+
+    @Test public void watchedFileIsReloaded() throws Exception {
+        File f = writeProtocolsFile("tcp\t6\tTCP");
+        ProtocolsDB db = FileProtocolsDB.load(f, true);
+        assertNull(db.getProtocolByName("udp"));
+
+        writeLines(f, "tcp\t6\tTCP", "udp\t17\tUDP");
+        for (int i = 0; i < 200 && db.getProtocolByName("udp") == null; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(17, db.getProtocolByName("udp").getProto());
+    }
 }
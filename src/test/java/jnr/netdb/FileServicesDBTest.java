@@ -1,18 +1,27 @@
 
 package jnr.netdb;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
 
 /**
  *
  */
 public class FileServicesDBTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public FileServicesDBTest() {
     }
 
@@ -33,7 +42,7 @@ public class FileServicesDBTest {
     }
 
     @Test public void canLookupBootpServiceByName() {
-        FileServicesDB db = new FileServicesDB();
+        FileServicesDB db = new FileServicesDB(new File(FileServicesDB.fileName));
         Service s = db.getServiceByName("bootps", "udp");
         assertNotNull("could not lookup bootps service", s);
         assertEquals("incorrect port", 67, s.getPort());
@@ -41,7 +50,7 @@ public class FileServicesDBTest {
     }
 
     @Test public void canLookupBootpServiceByPort() {
-        FileServicesDB db = new FileServicesDB();
+        FileServicesDB db = new FileServicesDB(new File(FileServicesDB.fileName));
         Service s = db.getServiceByPort(67, "udp");
         assertNotNull("could not lookup bootps service", s);
         assertEquals("incorrect port", 67, s.getPort());
@@ -49,7 +58,7 @@ public class FileServicesDBTest {
     }
 
     @Test public void canLookupServiceWithAliasByName() {
-        ServicesDB db = new FileServicesDB();
+        ServicesDB db = new FileServicesDB(new File(FileServicesDB.fileName));
         Service s = db.getServiceByName("comsat", "udp");
         assertNotNull("could not lookup comsat/biff service", s);
         assertEquals("incorrect port", 512, s.getPort());
@@ -58,7 +67,7 @@ public class FileServicesDBTest {
     }
 
     @Test public void canLookupServiceWithAliasByPort() {
-        ServicesDB db = new FileServicesDB();
+        ServicesDB db = new FileServicesDB(new File(FileServicesDB.fileName));
         Service s = db.getServiceByPort(512, "udp");
         assertNotNull("could not lookup comsat/biff service", s);
         assertEquals("incorrect port", 512, s.getPort());
@@ -66,4 +75,184 @@ public class FileServicesDBTest {
         assertTrue(s.getAliases().contains("biff") || s.getAliases().contains("comsat"));
     }
 
-}
\ No newline at end of file
+    private File writeServicesFile(String... lines) throws IOException {
+        return writeLines(folder.newFile("services"), lines);
+    }
+
+    @Test public void firstMatchingEntryWins() throws IOException {
+        ServicesDB db = new FileServicesDB(writeServicesFile(
+                "# comment line",
+                "",
+                "first\t1000/tcp\tshared   # trailing comment",
+                "second\t1000/tcp\tshared",
+                "first\t1001/udp"));
+
+        assertEquals("first", db.getServiceByName("shared", "tcp").getName());
+        assertEquals("first", db.getServiceByPort(1000, "tcp").getName());
+        assertEquals(1001, db.getServiceByName("first", "udp").getPort());
+        assertEquals(1000, db.getServiceByName("first", null).getPort());
+        assertEquals("udp", db.getServiceByPort(1001, null).proto);
+        assertEquals(3, db.getAllServices().size());
+    }
+
+    @Test public void returnsNullOnMiss() throws IOException {
+        ServicesDB db = new FileServicesDB(writeServicesFile("first\t1000/tcp\tshared"));
+
+        assertNull(db.getServiceByName("first", "udp"));
+        assertNull(db.getServiceByName("second", null));
+        assertNull(db.getServiceByPort(1000, "sctp"));
+        assertNull(db.getServiceByPort(1001, null));
+    }
+
+    @Test public void skipsMalformedEntries() throws IOException {
+        ServicesDB db = new FileServicesDB(writeServicesFile(
+                "noproto\t1000",
+                "badport\tabc/tcp",
+                "good\t1002/tcp"));
+
+        assertNull(db.getServiceByName("noproto", null));
+        assertNull(db.getServiceByName("badport", null));
+        assertEquals(1, db.getAllServices().size());
+    }
+
+    @Test public void reloadSharesEntriesBeforeFirstChange() throws IOException {
+        File f = writeServicesFile(
+                "first\t1000/tcp",
+                "second\t1001/tcp\talias",
+                "third\t1002/tcp");
+        FileServicesDB db = new FileServicesDB(f);
+        Service first = db.getServiceByName("first", "tcp");
+        Service second = db.getServiceByName("second", "tcp");
+        Service third = db.getServiceByName("third", "tcp");
+
+        writeLines(f,
+                "first\t1000/tcp",
+                "second\t1001/tcp\talias",
+                "third\t1002/tcp",
+                "fourth\t1003/tcp");
+        db.reload();
+        assertSame(first, db.getServiceByName("first", "tcp"));
+        assertSame(second, db.getServiceByPort(1001, "tcp"));
+        assertSame(third, db.getServiceByName("third", null));
+        assertEquals(1003, db.getServiceByName("fourth", "tcp").getPort());
+        assertEquals(4, db.getAllServices().size());
+
+        writeLines(f,
+                "first\t1000/tcp",
+                "second\t2001/tcp\talias",
+                "third\t1002/tcp",
+                "fourth\t1003/tcp");
+        db.reload();
+        assertEquals(2001, db.getServiceByName("alias", "tcp").getPort());
+        assertNull(db.getServiceByPort(1001, "tcp"));
+        assertSame(third, db.getServiceByName("third", "tcp"));
+        assertEquals(4, db.getAllServices().size());
+    }
+
+    @Test public void reloadKeepsFirstMatchAcrossSegments() throws IOException {
+        File f = writeServicesFile("first\t1000/tcp\tshared");
+        FileServicesDB db = new FileServicesDB(f);
+
+        writeLines(f,
+                "first\t1000/tcp\tshared",
+                "second\t1000/tcp\tshared",
+                "second\t1001/udp");
+        db.reload();
+        assertEquals("first", db.getServiceByName("shared", "tcp").getName());
+        assertEquals("first", db.getServiceByPort(1000, null).getName());
+        assertEquals(1000, db.getServiceByName("second", null).getPort());
+        assertEquals("second", db.getServiceByPort(1001, null).getName());
+        assertEquals("second", db.getAllServices().toArray(new Service[0])[2].getName());
+    }
+
+    @Test public void reloadSeesChangesToUnterminatedLastLine() throws IOException {
+        File f = write(folder.newFile("services"), "first\t1000/tcp\nsecond\t1001/tcp");
+        FileServicesDB db = new FileServicesDB(f);
+
+        writeLines(f, "first\t1000/tcp", "second\t1001/tcp\talias");
+        db.reload();
+        assertEquals(1001, db.getServiceByName("alias", "tcp").getPort());
+        assertEquals(2, db.getAllServices().size());
+    }
+
+    @Test public void reloadHandlesTruncatedFile() throws IOException {
+        File f = writeServicesFile("first\t1000/tcp", "second\t1001/tcp");
+        FileServicesDB db = new FileServicesDB(f);
+
+        writeLines(f, "first\t1000/tcp");
+        db.reload();
+        assertNull(db.getServiceByName("second", "tcp"));
+        assertEquals(1, db.getAllServices().size());
+    }
+
+    @Test public void reloadKeepsIndexWhenFileIsEmptied() throws IOException {
+        File f = writeServicesFile("first\t1000/tcp", "second\t1001/tcp");
+        FileServicesDB db = new FileServicesDB(f);
+
+        writeLines(f);
+        db.reload();
+        assertEquals(1001, db.getServiceByName("second", "tcp").getPort());
+
+        assertTrue(f.delete());
+        db.reload();
+        assertEquals(2, db.getAllServices().size());
+
+        writeLines(f, "third\t1002/tcp");
+        db.reload();
+        assertNull(db.getServiceByName("first", "tcp"));
+        assertEquals(1002, db.getServiceByName("third", "tcp").getPort());
+    }
+
+    @Test public void segmentCountStaysSmallWhenAppending() throws IOException {
+        File f = folder.newFile("services");
+        ServicesSnapshot snapshot = null;
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            contents.append("service-").append(i).append('\t').append(i).append("/tcp\n");
+            writeLines(f, contents.toString().split("\n"));
+            snapshot = ServicesSnapshot.load(f, snapshot);
+            assertTrue(snapshot.segmentCount() <= 8);
+        }
+
+        assertEquals(200, snapshot.getAllServices().size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("service-" + i, snapshot.getServiceByPort(i, "tcp").getName());
+        }
+        assertSame(snapshot, ServicesSnapshot.load(f, snapshot));
+    }
+
+    @Test public void parallelLoadMatchesSequentialLoad() throws IOException {
+        String[] lines = new String[20000];
+        for (int i = 0; i < lines.length; i++) {
+            // Every name and port appears twice, far apart, so the first one must win across chunks
+            int n = i % (lines.length / 2);
+            lines[i] = "service-" + n + "\t" + (n + (i < lines.length / 2 ? 0 : 1)) + "/" + (i % 3 == 0 ? "udp" : "tcp")
+                    + "\talias-" + i;
+        }
+        File f = writeServicesFile(lines);
+
+        ServicesSnapshot sequential = ServicesSnapshot.load(f, null, Integer.MAX_VALUE);
+        ServicesSnapshot parallel = ServicesSnapshot.load(f, null, 4096);
+        assertEquals(sequential.getAllServices().size(), parallel.getAllServices().size());
+        for (int i = 0; i < lines.length; i++) {
+            int n = i % (lines.length / 2);
+            assertEquals(sequential.getServiceByName("service-" + n, null).getPort(), parallel.getServiceByName("service-" + n, null).getPort());
+            assertEquals(sequential.getServiceByName("alias-" + i, "tcp") != null, parallel.getServiceByName("alias-" + i, "tcp") != null);
+            assertEquals(sequential.getServiceByPort(n, "udp") != null ? sequential.getServiceByPort(n, "udp").getName() : null,
+                    parallel.getServiceByPort(n, "udp") != null ? parallel.getServiceByPort(n, "udp").getName() : null);
+            assertEquals(sequential.getServiceByPort(n + 1, null).getAliases(), parallel.getServiceByPort(n + 1, null).getAliases());
+        }
+    }
+
+    @Test public void watchedFileIsReloaded() throws Exception {
+        File f = writeLines(folder.newFile("services"), "first\t1000/tcp");
+        ServicesDB db = FileServicesDB.load(f, false, true);
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+
+        writeLines(f, "first\t1000/tcp", "second\t1001/tcp");
+        for (int i = 0; i < 200 && db.getServiceByName("second", "tcp") == null; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1001, db.getServiceByName("second", "tcp").getPort());
+    }
+}
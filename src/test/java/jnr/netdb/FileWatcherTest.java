@@ -0,0 +1,133 @@
+
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
+
+/**
+ *
+ */
+public class FileWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileWatcher watcher;
+
+    public FileWatcherTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        watcher = new FileWatcher(20);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.close();
+    }
+
+    private static Service waitForService(ServicesDB db, String name, String proto) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Service s = db.getServiceByName(name, proto);
+            if (s != null) {
+                return s;
+            }
+            Thread.sleep(10);
+        }
+
+        return null;
+    }
+
+    @Test public void reloadsModifiedFile() throws Exception {
+        File f = folder.newFile("services");
+        write(f, "first\t1000/tcp\n");
+
+        final FileServicesDB db = new FileServicesDB(f);
+        watcher.watch(f, new Runnable() {
+            public void run() {
+                db.reload();
+            }
+        });
+        assertNull(db.getServiceByName("second", "tcp"));
+
+        write(f, "first\t1000/tcp\nsecond\t1001/tcp\n");
+
+        Service s = waitForService(db, "second", "tcp");
+        assertNotNull("modified file was not reloaded", s);
+        assertEquals(1001, s.getPort());
+        assertNotNull(db.getServiceByName("first", "tcp"));
+    }
+
+    @Test public void reloadsFileReplacedByRename() throws Exception {
+        File f = folder.newFile("services");
+        write(f, "first\t1000/tcp\n");
+
+        final FileServicesDB db = new FileServicesDB(f);
+        watcher.watch(f, new Runnable() {
+            public void run() {
+                db.reload();
+            }
+        });
+
+        File tmp = folder.newFile("services.tmp");
+        write(tmp, "replaced\t2000/udp\n");
+        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Service s = waitForService(db, "replaced", "udp");
+        assertNotNull("replaced file was not reloaded", s);
+        assertNull(db.getServiceByName("first", "tcp"));
+    }
+
+    @Test public void closeStopsThreadQuietly() throws Exception {
+        final List<Throwable> uncaught = new CopyOnWriteArrayList<Throwable>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            public void uncaughtException(Thread t, Throwable e) {
+                uncaught.add(e);
+            }
+        });
+
+        try {
+            // The thread may be anywhere in its loop when the watcher is closed
+            File f = folder.newFile("services");
+            for (int i = 0; i < 50; i++) {
+                FileWatcher w = new FileWatcher(1);
+                w.watch(f, new Runnable() {
+                    public void run() {
+                    }
+                });
+                Thread.sleep(i % 5);
+                w.close();
+            }
+            Thread.sleep(100);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+
+        assertEquals(Collections.<Throwable>emptyList(), uncaught);
+    }
+}
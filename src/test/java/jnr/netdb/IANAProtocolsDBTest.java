@@ -0,0 +1,57 @@
+package jnr.netdb;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class IANAProtocolsDBTest {
+
+    public IANAProtocolsDBTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test public void canLookupByNameAndAlias() {
+        ProtocolsDB db = IANAProtocolsDB.getInstance();
+        assertEquals(6, db.getProtocolByName("tcp").getProto());
+        assertEquals(6, db.getProtocolByName("TCP").getProto());
+        assertEquals("udp", db.getProtocolByName("UDP").getName());
+        assertNull(db.getProtocolByName("no-such-protocol"));
+        assertNull(db.getProtocolByName(null));
+    }
+
+    @Test public void allProtocolsCanBeFoundByNameAndAlias() {
+        ProtocolsDB db = IANAProtocolsDB.getInstance();
+        Set<Integer> numbers = new HashSet<Integer>();
+        for (Protocol p : db.getAllProtocols()) {
+            assertTrue("duplicate protocol " + p.getName(), numbers.add(p.getProto()));
+            assertSame(p, db.getProtocolByName(p.getName()));
+            for (String alias : p.getAliases()) {
+                assertSame(p, db.getProtocolByName(alias));
+            }
+        }
+    }
+}
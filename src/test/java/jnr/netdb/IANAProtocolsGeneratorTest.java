@@ -0,0 +1,79 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
+
+/**
+ *
+ */
+public class IANAProtocolsGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public IANAProtocolsGeneratorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test public void canParseRegistry() throws IOException {
+        File f = writeLines(folder.newFile("protocol-numbers-1.csv"),
+                "Decimal,Keyword,Protocol,IPv6 Extension Header,Reference",
+                "0,HOPOPT,IPv6 Hop-by-Hop Option,Y,[RFC8200]",
+                "6,TCP,Transmission Control,,[RFC9293]",
+                "61,,\"any host internal protocol, spanning",
+                "two lines\",,[Internet_Assigned_Numbers_Authority]",
+                "146-252,,Unassigned,,[Internet_Assigned_Numbers_Authority]");
+        List<Protocol> protocols = IANAProtocolsGenerator.parseRegistry(f);
+
+        assertEquals(2, protocols.size());
+        assertEquals("hopopt", protocols.get(0).getName());
+        assertEquals(0, protocols.get(0).getProto());
+        assertEquals("tcp", protocols.get(1).getName());
+        assertEquals(6, protocols.get(1).getProto());
+        assertEquals(Collections.singletonList("TCP"), protocols.get(1).getAliases());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidName() throws IOException {
+        File f = writeLines(folder.newFile("protocols"), "bad\"name 6");
+        IANAProtocolsGenerator.write(IANAProtocolsGenerator.parse(f), f.getName(), new StringWriter());
+    }
+
+    @Test public void tableIsUpToDate() throws IOException {
+        File input = new File(System.getProperty("iana.protocols.source", "src/main/data/iana-protocols.txt"));
+        StringWriter out = new StringWriter();
+        IANAProtocolsGenerator.write(IANAProtocolsGenerator.parse(input), input.getName(), out);
+
+        String checkedIn = new String(Files.readAllBytes(new File("src/main/java/jnr/netdb/IANAProtocolsTable.java").toPath()), "UTF-8");
+        assertEquals("IANAProtocolsTable is out of date; run mvn -Piana-tables process-classes", checkedIn, out.toString());
+    }
+}
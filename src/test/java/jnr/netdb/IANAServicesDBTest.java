@@ -0,0 +1,89 @@
+package jnr.netdb;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class IANAServicesDBTest {
+
+    public IANAServicesDBTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test public void canLookupByPort() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        assertEquals("domain", db.getServiceByPort(53, "udp").getName());
+        assertEquals("tcp", db.getServiceByPort(22, "tcp").proto);
+        assertEquals("tcp", db.getServiceByPort(0, null).proto);
+        assertEquals("exp2", db.getServiceByPort(1022, "udp").getName());
+    }
+
+    @Test public void canLookupByName() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        assertEquals(53, db.getServiceByName("domain", "tcp").getPort());
+        assertEquals(67, db.getServiceByName("bootps", null).getPort());
+        assertEquals("udp", db.getServiceByName("bootps", "udp").proto);
+    }
+
+    @Test public void namesListedTwiceKeepTheirPorts() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        for (String proto : new String[] { "tcp", "udp" }) {
+            assertEquals(3, db.getServiceByName("compressnet", proto).getPort());
+            assertEquals(256, db.getServiceByName("rap", proto).getPort());
+            assertEquals(85, db.getServiceByName("mit-ml-dev", proto).getPort());
+            assertEquals(571, db.getServiceByName("meter", proto).getPort());
+        }
+    }
+
+    @Test public void returnsNullOnMiss() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        assertNull(db.getServiceByPort(1023, "tcp"));
+        assertNull(db.getServiceByPort(65535, null));
+        assertNull(db.getServiceByPort(65536, null));
+        assertNull(db.getServiceByPort(-1, null));
+        assertNull(db.getServiceByPort(53, "sctp"));
+        assertNull(db.getServiceByPort(null, "tcp"));
+        assertNull(db.getServiceByName("no-such-service", null));
+        assertNull(db.getServiceByName("domain", "sctp"));
+    }
+
+    @Test public void allServicesCanBeFoundByPort() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        for (Service s : db.getAllServices()) {
+            Service byPort = db.getServiceByPort(s.getPort(), s.proto);
+            assertNotNull(s.getName(), byPort);
+            assertEquals(s.getPort(), byPort.getPort());
+            assertEquals(s.proto, byPort.proto);
+        }
+    }
+
+    @Test public void allServicesCanBeFoundByName() {
+        ServicesDB db = IANAServicesDB.getInstance();
+        for (Service s : db.getAllServices()) {
+            assertSame(s, db.getServiceByName(s.getName(), s.proto));
+            assertNotNull(db.getServiceByName(s.getName(), null));
+        }
+        assertNull(db.getServiceByName(null, "tcp"));
+    }
+}
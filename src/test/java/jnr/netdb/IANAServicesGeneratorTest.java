@@ -0,0 +1,132 @@
+package jnr.netdb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class IANAServicesGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public IANAServicesGeneratorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private File writeRegistry(String... lines) throws IOException {
+        File f = folder.newFile("service-names-port-numbers.csv");
+        OutputStream out = new FileOutputStream(f);
+        try {
+            for (String line : lines) {
+                out.write(line.getBytes("UTF-8"));
+                out.write('\r');
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+
+        return f;
+    }
+
+    private static byte[] write(List<Service> services) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        IANAServicesGenerator.write(services, out);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    private static IANAServicesDB roundTrip(List<Service> services) throws IOException {
+        return IANAServicesDB.read(new DataInputStream(new ByteArrayInputStream(write(services))));
+    }
+
+    @Test public void canParseRegistry() throws IOException {
+        File f = writeRegistry(
+                "\ufeffService Name,Port Number,Transport Protocol,Description,Assignee,Contact",
+                "ftp,21,tcp,File Transfer Protocol [Control],[Jon_Postel],[Jon_Postel]",
+                "ftp,21,udp,File Transfer Protocol [Control],[Jon_Postel],[Jon_Postel]",
+                ",23,udp,Reserved,,",
+                "ssh,22,sctp,SSH,[Randall_Stewart],[Randall_Stewart]",
+                "x11,6000-6063,tcp,\"X Window System, \"\"X11\"\"",
+                "spanning two lines\",[Stephen_Gildea],[Stephen_Gildea]",
+                "alt-x11,6000,tcp,A later name for the same port,,",
+                "nameonly,,tcp,Service name only,,",
+                "");
+        IANAServicesDB db = roundTrip(IANAServicesGenerator.parseRegistry(f));
+
+        assertEquals(21, db.getServiceByName("ftp", "tcp").getPort());
+        assertEquals(21, db.getServiceByName("ftp", "udp").getPort());
+        assertNull(db.getServiceByPort(23, "udp"));
+        assertNull(db.getServiceByName("ssh", null));
+        assertNull(db.getServiceByName("nameonly", null));
+
+        // The first registered name and port win
+        assertEquals(6000, db.getServiceByName("x11", "tcp").getPort());
+        assertEquals("x11", db.getServiceByPort(6000, "tcp").getName());
+        assertEquals("x11", db.getServiceByPort(6063, "tcp").getName());
+        assertEquals(6000, db.getServiceByName("alt-x11", "tcp").getPort());
+        assertEquals(4, db.getAllServices().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidPort() throws IOException {
+        IANAServicesGenerator.parseRegistry(writeRegistry(
+                "Service Name,Port Number,Transport Protocol",
+                "bad,70000,tcp"));
+    }
+
+    @Test public void roundTripMatchesBuiltInTable() throws IOException {
+        IANAServicesDB builtIn = IANAServicesDB.getInstance();
+        IANAServicesDB db = roundTrip(builtIn.getAllServices());
+        for (Service s : builtIn.getAllServices()) {
+            Service copy = db.getServiceByName(s.getName(), s.proto);
+            assertNotNull(s.getName(), copy);
+            assertEquals(s.getPort(), copy.getPort());
+        }
+        assertEquals(builtIn.getAllServices().size(), db.getAllServices().size());
+    }
+
+    @Test public void resourceIsUpToDate() throws IOException {
+        File input = new File(System.getProperty("iana.services.source", "src/main/data/iana-services.txt"));
+        byte[] checkedIn = Files.readAllBytes(new File("src/main/resources/jnr/netdb/iana-services.dat").toPath());
+        assertTrue("iana-services.dat is out of date; run mvn -Piana-tables process-classes",
+                Arrays.equals(checkedIn, write(IANAServicesGenerator.parse(input))));
+    }
+}
@@ -0,0 +1,151 @@
+
+package jnr.netdb;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LookupCacheTest {
+
+    public LookupCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test public void countsHitsAndMisses() {
+        LookupCache<String, String> cache = new LookupCache<String, String>(10, 0);
+        assertNull(cache.get("a"));
+        cache.put("a", "A");
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test public void neverExceedsMaximumSize() {
+        LookupCache<Integer, Integer> cache = new LookupCache<Integer, Integer>(16, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i);
+            cache.get(i);
+            cache.put(i, i);
+        }
+
+        assertEquals(16, cache.size());
+        assertTrue(cache.stats().getEvictionCount() > 0);
+    }
+
+    @Test public void frequentlyUsedEntriesSurviveOneOffLookups() {
+        LookupCache<String, String> cache = new LookupCache<String, String>(8, 0);
+        for (int i = 0; i < 8; i++) {
+            String key = "hot-" + i;
+            cache.put(key, key);
+            for (int j = 0; j < 5; j++) {
+                cache.get(key);
+            }
+        }
+
+        for (int i = 0; i < 100; i++) {
+            String key = "cold-" + i;
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals("hot-" + i, cache.get("hot-" + i));
+        }
+    }
+
+    @Test public void entriesExpireAfterTtl() throws InterruptedException {
+        LookupCache<String, String> cache = new LookupCache<String, String>(10, 1);
+        cache.put("a", "A");
+        Thread.sleep(10);
+        assertNull(cache.get("a"));
+
+        cache.put("a", "B");
+        assertEquals("B", cache.get("a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test public void cachingServicesDBOnlyCallsBackendOnMiss() {
+        final int[] calls = new int[1];
+        ServicesDB backend = new ServicesDB() {
+            public Service getServiceByName(String name, String proto) {
+                calls[0]++;
+                return IANAServicesDB.getInstance().getServiceByName(name, proto);
+            }
+
+            public Service getServiceByPort(Integer port, String proto) {
+                calls[0]++;
+                return IANAServicesDB.getInstance().getServiceByPort(port, proto);
+            }
+
+            public java.util.Collection<Service> getAllServices() {
+                return IANAServicesDB.getInstance().getAllServices();
+            }
+        };
+
+        CachingServicesDB db = new CachingServicesDB(backend, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(53, db.getServiceByName("domain", "udp").getPort());
+            assertEquals("domain", db.getServiceByPort(53, "tcp").getName());
+        }
+
+        assertEquals(2, calls[0]);
+        assertEquals(8, db.getCacheStats().getHitCount());
+    }
+
+    @Test public void cachingServicesDBCachesMissesSeparately() {
+        final int[] calls = new int[1];
+        ServicesDB backend = new ServicesDB() {
+            public Service getServiceByName(String name, String proto) {
+                calls[0]++;
+                return IANAServicesDB.getInstance().getServiceByName(name, proto);
+            }
+
+            public Service getServiceByPort(Integer port, String proto) {
+                calls[0]++;
+                return IANAServicesDB.getInstance().getServiceByPort(port, proto);
+            }
+
+            public java.util.Collection<Service> getAllServices() {
+                return IANAServicesDB.getInstance().getAllServices();
+            }
+        };
+
+        CachingServicesDB db = new CachingServicesDB(backend, 0, 0, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            assertNull(db.getServiceByPort(4, "udp"));
+            assertNull(db.getServiceByName("no-such-service", "tcp"));
+            assertNotNull(db.getServiceByName("domain", "tcp"));
+        }
+
+        // Only the hits go to the backend every time
+        assertEquals(2 + 5, calls[0]);
+        assertEquals(8, db.getMissCacheStats().getHitCount());
+        assertEquals(0, db.getCacheStats().getHitCount());
+    }
+}
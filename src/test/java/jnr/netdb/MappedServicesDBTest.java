@@ -0,0 +1,115 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MappedServicesDBTest {
+
+    public MappedServicesDBTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static MappedServicesDB index(Collection<Service> services) throws IOException {
+        // Put the index at an offset, as it is in a snapshot file
+        byte[] index = MappedServicesDB.write(services, 7);
+        ByteBuffer buf = ByteBuffer.allocateDirect(7 + index.length);
+        buf.position(7);
+        buf.put(index);
+
+        return new MappedServicesDB(buf, 7);
+    }
+
+    private static void assertSameService(Service expected, Service actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(expected.toString(), actual);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getPort(), actual.getPort());
+            assertEquals(expected.proto, actual.proto);
+            assertEquals(new ArrayList<String>(expected.getAliases()), new ArrayList<String>(actual.getAliases()));
+        }
+    }
+
+    @Test public void firstMatchWins() throws IOException {
+        List<String> noAliases = Collections.emptyList();
+        MappedServicesDB db = index(Arrays.asList(
+                new Service("domain", 53, "udp", Arrays.asList("dns", "nameserver")),
+                new Service("domain", 53, "tcp", noAliases),
+                new Service("dns", 5353, "udp", noAliases),
+                new Service("caf\u00e9", 8080, "tcp", noAliases),
+                new Service("http-alt", 8080, "tcp", noAliases)));
+
+        assertEquals("udp", db.getServiceByName("domain", null).proto);
+        assertEquals("tcp", db.getServiceByName("domain", "tcp").proto);
+        assertEquals(53, db.getServiceByName("dns", "udp").getPort());
+        assertEquals(Arrays.asList("dns", "nameserver"), db.getServiceByPort(53, null).getAliases());
+        assertEquals("caf\u00e9", db.getServiceByPort(8080, "tcp").getName());
+        assertEquals(8080, db.getServiceByName("caf\u00e9", null).getPort());
+        assertEquals(5, db.getAllServices().size());
+
+        assertNull(db.getServiceByName("dns", "tcp"));
+        assertNull(db.getServiceByName("domain", "sctp"));
+        assertNull(db.getServiceByName("cafe", null));
+        assertNull(db.getServiceByName(null, null));
+        assertNull(db.getServiceByPort(8080, "udp"));
+        assertNull(db.getServiceByPort(70000, null));
+        assertNull(db.getServiceByPort(null, "tcp"));
+    }
+
+    @Test public void emptyIndex() throws IOException {
+        MappedServicesDB db = index(Collections.<Service>emptyList());
+        assertTrue(db.isEmpty());
+        assertNull(db.getServiceByName("ssh", null));
+        assertNull(db.getServiceByPort(22, "tcp"));
+    }
+
+    @Test public void agreesWithIndexForEtcServices() throws IOException {
+        ServicesIndex expected = new ServicesIndex.Builder()
+                .addAll(ServicesSnapshot.load(new File(FileServicesDB.fileName), null).getAllServices())
+                .build();
+
+        MappedServicesDB db = index(expected.getAllServices());
+        for (Service s : expected.getAllServices()) {
+            for (String proto : new String[] { s.proto, null, "no-such-proto" }) {
+                assertSameService(expected.getServiceByName(s.getName(), proto), db.getServiceByName(s.getName(), proto));
+                assertSameService(expected.getServiceByPort(s.getPort(), proto), db.getServiceByPort(s.getPort(), proto));
+                for (String alias : s.getAliases()) {
+                    assertSameService(expected.getServiceByName(alias, proto), db.getServiceByName(alias, proto));
+                }
+            }
+        }
+        assertEquals(expected.getAllServices().size(), db.getAllServices().size());
+    }
+}
@@ -95,4 +95,16 @@ public class NativeProtocolsDBTest {
         }
         assertTrue(tcpFound);
     }
-}
\ No newline at end of file
+
+    @Test public void preloadedIndexMatchesNativeLookups() {
+        ProtocolsDB db = NativeProtocolsDB.getInstance();
+        ProtocolsDB preloaded = ProtocolsIndex.preload(db);
+        assertTrue(preloaded instanceof ProtocolsIndex);
+
+        Protocol p = preloaded.getProtocolByName("tcp");
+        assertNotNull("could not lookup tcp protocol", p);
+        assertEquals(6, p.getProto());
+        assertEquals("tcp", preloaded.getProtocolByNumber(6).getName());
+        assertNull(preloaded.getProtocolByName("foo-bar-baz"));
+    }
+}
@@ -1,6 +1,14 @@
 
 package jnr.netdb;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jnr.ffi.Library;
 import jnr.ffi.Platform;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -87,4 +95,54 @@ public class NativeServicesDBTest {
         }
         assertTrue(ftpFound);
     }
-}
\ No newline at end of file
+
+    @Test public void concurrentLookupsReturnCorrectResults() throws Exception {
+        final ServicesDB db = NativeServicesDB.load();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        for (int i = 0; i < 1000; i++) {
+                            Service bootps = db.getServiceByName("bootps", "udp");
+                            Service biff = db.getServiceByPort(512, "udp");
+                            if (bootps == null || bootps.getPort() != 67 || biff == null || biff.getPort() != 512) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue("concurrent lookup returned an incorrect result", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test public void growsBufferWhenEntryDoesNotFit() {
+        if (Platform.getNativePlatform().getOS().equals(Platform.OS.LINUX)) {
+            ServicesDB db = new NativeServicesDB.LinuxServicesDB(
+                    Library.loadLibrary(NativeServicesDB.LinuxLibServices.class, "c"), 16);
+            Service s = db.getServiceByName("comsat", "udp");
+            assertNotNull("could not lookup comsat/biff service", s);
+            assertEquals("incorrect port", 512, s.getPort());
+            assertTrue(Service.getNativeBufferHighWaterMark() >= 32);
+        }
+    }
+
+    @Test public void preloadedIndexMatchesNativeLookups() {
+        ServicesDB db = NativeServicesDB.load();
+        ServicesDB preloaded = ServicesIndex.preload(db);
+        assertTrue(preloaded instanceof ServicesIndex);
+
+        Service s = preloaded.getServiceByName("comsat", "udp");
+        assertNotNull("could not lookup comsat/biff service", s);
+        assertEquals(db.getServiceByName("comsat", "udp").getName(), s.getName());
+        assertEquals(db.getServiceByPort(67, "udp").getName(), preloaded.getServiceByPort(67, "udp").getName());
+        assertNull(preloaded.getServiceByName("no-such-service", "tcp"));
+    }
+}
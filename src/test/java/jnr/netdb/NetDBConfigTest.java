@@ -0,0 +1,290 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
+
+/**
+ *
+ */
+public class NetDBConfigTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public NetDBConfigTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Loads a fresh copy of jnr-netdb, and records every jnr-ffi class it asks for
+     */
+    private static final class RecordingLoader extends URLClassLoader {
+        final Set<String> ffiClasses = Collections.synchronizedSet(new HashSet<String>());
+
+        RecordingLoader() {
+            super(new URL[] { Service.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("jnr.ffi.")) {
+                ffiClasses.add(name);
+                return NetDBConfigTest.class.getClassLoader().loadClass(name);
+            }
+
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    private static Object invoke(ClassLoader loader, String className, String method, Class<?>[] types, Object... args) throws Throwable {
+        Method m = Class.forName(className, true, loader).getMethod(method, types);
+        try {
+            return m.invoke(null, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static void installPureJava(ClassLoader loader) throws Throwable {
+        Object builder = invoke(loader, "jnr.netdb.NetDBConfig", "builder", new Class<?>[0]);
+        builder = builder.getClass().getMethod("pureJava", boolean.class).invoke(builder, true);
+        Object config = builder.getClass().getMethod("build").invoke(builder);
+        invoke(loader, "jnr.netdb.NetDBConfig", "install", new Class<?>[] { config.getClass() }, config);
+    }
+
+    @Test public void pureJavaNeverLoadsJnrFfi() throws Throwable {
+        RecordingLoader loader = new RecordingLoader();
+        installPureJava(loader);
+
+        Object ssh = invoke(loader, "jnr.netdb.Service", "getServiceByName", new Class<?>[] { String.class, String.class }, "ssh", "tcp");
+        assertNotNull(ssh);
+        assertEquals(22, ssh.getClass().getMethod("getPort").invoke(ssh));
+
+        Object tcp = invoke(loader, "jnr.netdb.Protocol", "getProtocolByName", new Class<?>[] { String.class }, "tcp");
+        assertNotNull(tcp);
+        assertEquals(6, tcp.getClass().getMethod("getProto").invoke(tcp));
+
+        assertEquals(0, invoke(loader, "jnr.netdb.Service", "getNativeBufferHighWaterMark", new Class<?>[0]));
+        assertEquals(0, invoke(loader, "jnr.netdb.Protocol", "getNativeBufferHighWaterMark", new Class<?>[0]));
+        assertEquals(Collections.<String>emptySet(), loader.ffiClasses);
+    }
+
+    @Test public void cannotInstallAfterFirstLookup() throws Throwable {
+        ClassLoader loader = new RecordingLoader();
+        installPureJava(loader);
+        invoke(loader, "jnr.netdb.Protocol", "getProtocolByNumber", new Class<?>[] { int.class }, 17);
+
+        try {
+            installPureJava(loader);
+            fail("install should fail after the first lookup");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static String withProperty(String name, String value, Callable<String> body) throws Exception {
+        String key = SystemProperties.PREFIX + name;
+        String previous = System.getProperty(key);
+        System.setProperty(key, value);
+        try {
+            return body.call();
+        } finally {
+            if (previous != null) {
+                System.setProperty(key, previous);
+            } else {
+                System.clearProperty(key);
+            }
+        }
+    }
+
+    @Test public void defaultsToSystemProperties() throws Exception {
+        withProperty("pureJava", "true", new Callable<String>() {
+            public String call() {
+                assertTrue(NetDBConfig.builder().build().isPureJava());
+                assertFalse(NetDBConfig.builder().pureJava(false).build().isPureJava());
+                assertEquals(Arrays.asList(NetDBConfig.Backend.FILE, NetDBConfig.Backend.IANA),
+                        NetDBConfig.builder().build().getServicesBackends());
+                return null;
+            }
+        });
+
+        withProperty("backends", "iana, File,bogus,file", new Callable<String>() {
+            public String call() throws Exception {
+                NetDBConfig config = NetDBConfig.builder().build();
+                assertEquals(Arrays.asList(NetDBConfig.Backend.IANA, NetDBConfig.Backend.FILE), config.getServicesBackends());
+                assertEquals(config.getServicesBackends(), config.getProtocolsBackends());
+
+                return withProperty("protocols.backends", "native", new Callable<String>() {
+                    public String call() {
+                        assertEquals(Arrays.asList(NetDBConfig.Backend.NATIVE), NetDBConfig.builder().build().getProtocolsBackends());
+                        return null;
+                    }
+                });
+            }
+        });
+
+        withProperty("cache.maxSize", "100", new Callable<String>() {
+            public String call() {
+                NetDBConfig config = NetDBConfig.builder().build();
+                assertEquals(100, config.getCacheMaxSize());
+                assertEquals(0, NetDBConfig.builder().cache(0, 0).build().getCacheMaxSize());
+                return null;
+            }
+        });
+
+        withProperty("watch.interval", "250", new Callable<String>() {
+            public String call() {
+                NetDBConfig config = NetDBConfig.builder().build();
+                assertEquals(250, config.getWatchIntervalMillis());
+                assertEquals(10, NetDBConfig.builder().watchInterval(10).build().getWatchIntervalMillis());
+                return null;
+            }
+        });
+
+        withProperty("file.lowMemory", "true", new Callable<String>() {
+            public String call() {
+                assertTrue(NetDBConfig.builder().build().isFileLowMemory());
+                assertFalse(NetDBConfig.builder().fileLowMemory(false).build().isFileLowMemory());
+                return null;
+            }
+        });
+
+        assertEquals(Arrays.asList(NetDBConfig.Backend.NATIVE, NetDBConfig.Backend.FILE, NetDBConfig.Backend.IANA),
+                NetDBConfig.builder().build().getServicesBackends());
+        assertNull(NetDBConfig.builder().build().getSnapshotFile());
+        assertFalse(NetDBConfig.builder().build().isWatch());
+        assertTrue(NetDBConfig.builder().watch(true).build().isWatch());
+        assertEquals(5000, NetDBConfig.builder().build().getWatchIntervalMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRepeatedBackend() {
+        NetDBConfig.builder().servicesBackends(NetDBConfig.Backend.FILE, NetDBConfig.Backend.FILE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoBackends() {
+        NetDBConfig.builder().backends();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCacheSize() {
+        NetDBConfig.builder().negativeCache(-1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroWatchInterval() {
+        NetDBConfig.builder().watchInterval(0);
+    }
+
+    @Test public void usesConfiguredBackendsAndFiles() throws Throwable {
+        File services = writeLines(folder.newFile("services"), "ssh\t2222/tcp");
+
+        RecordingLoader loader = new RecordingLoader();
+        Class<?> backendClass = loader.loadClass("jnr.netdb.NetDBConfig$Backend");
+        Object fileOnly = Array.newInstance(backendClass, 1);
+        Array.set(fileOnly, 0, backendClass.getField("FILE").get(null));
+        Object ianaOnly = Array.newInstance(backendClass, 1);
+        Array.set(ianaOnly, 0, backendClass.getField("IANA").get(null));
+
+        Object builder = invoke(loader, "jnr.netdb.NetDBConfig", "builder", new Class<?>[0]);
+        builder.getClass().getMethod("servicesBackends", fileOnly.getClass()).invoke(builder, fileOnly);
+        builder.getClass().getMethod("servicesFile", File.class).invoke(builder, services);
+        builder.getClass().getMethod("protocolsBackends", ianaOnly.getClass()).invoke(builder, ianaOnly);
+        Object config = builder.getClass().getMethod("build").invoke(builder);
+        invoke(loader, "jnr.netdb.NetDBConfig", "install", new Class<?>[] { config.getClass() }, config);
+
+        Object ssh = invoke(loader, "jnr.netdb.Service", "getServiceByName", new Class<?>[] { String.class, String.class }, "ssh", "tcp");
+        assertEquals(2222, ssh.getClass().getMethod("getPort").invoke(ssh));
+        assertNull(invoke(loader, "jnr.netdb.Service", "getServiceByName", new Class<?>[] { String.class, String.class }, "domain", null));
+
+        Object udp = invoke(loader, "jnr.netdb.Protocol", "getProtocolByNumber", new Class<?>[] { int.class }, 17);
+        assertEquals("udp", udp.getClass().getMethod("getName").invoke(udp));
+        assertEquals(Collections.<String>emptySet(), loader.ffiClasses);
+    }
+
+    @Test public void exposesAdaptiveSelection() throws Throwable {
+        RecordingLoader loader = new RecordingLoader();
+        Object builder = invoke(loader, "jnr.netdb.NetDBConfig", "builder", new Class<?>[0]);
+        builder = builder.getClass().getMethod("pureJava", boolean.class).invoke(builder, true);
+        builder = builder.getClass().getMethod("adaptive", boolean.class).invoke(builder, true);
+        Object config = builder.getClass().getMethod("build").invoke(builder);
+        invoke(loader, "jnr.netdb.NetDBConfig", "install", new Class<?>[] { config.getClass() }, config);
+
+        Object selection = invoke(loader, "jnr.netdb.Service", "getBackendSelection", new Class<?>[0]);
+        assertNotNull(selection);
+        Object backend = selection.getClass().getMethod("getBackend").invoke(selection);
+        assertTrue(((Map<?, ?>) selection.getClass().getMethod("getNanosPerLookup").invoke(selection)).containsKey(backend));
+        assertNotNull(invoke(loader, "jnr.netdb.Protocol", "getBackendSelection", new Class<?>[0]));
+        assertEquals(Collections.<String>emptySet(), loader.ffiClasses);
+    }
+
+    @Test public void watchesOnlyTheSelectedBackend() throws Throwable {
+        // The file disagrees with the IANA table, so it is never chosen
+        File services = writeLines(folder.newFile("services"), "ssh\t2222/tcp");
+
+        RecordingLoader loader = new RecordingLoader();
+        Class<?> backendClass = loader.loadClass("jnr.netdb.NetDBConfig$Backend");
+        Object backends = Array.newInstance(backendClass, 2);
+        Array.set(backends, 0, backendClass.getField("IANA").get(null));
+        Array.set(backends, 1, backendClass.getField("FILE").get(null));
+
+        Object builder = invoke(loader, "jnr.netdb.NetDBConfig", "builder", new Class<?>[0]);
+        builder.getClass().getMethod("servicesBackends", backends.getClass()).invoke(builder, backends);
+        builder.getClass().getMethod("servicesFile", File.class).invoke(builder, services);
+        builder.getClass().getMethod("adaptive", boolean.class).invoke(builder, true);
+        builder.getClass().getMethod("watch", boolean.class).invoke(builder, true);
+        Object config = builder.getClass().getMethod("build").invoke(builder);
+        invoke(loader, "jnr.netdb.NetDBConfig", "install", new Class<?>[] { config.getClass() }, config);
+
+        int watchers = countWatcherThreads();
+        Object selection = invoke(loader, "jnr.netdb.Service", "getBackendSelection", new Class<?>[0]);
+        assertEquals("IANA", selection.getClass().getMethod("getBackend").invoke(selection).toString());
+        assertEquals(watchers, countWatcherThreads());
+    }
+
+    private static int countWatcherThreads() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("jnr-netdb-file-watcher")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,200 @@
+
+package jnr.netdb;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class NetDBParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public NetDBParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static List<NetDBEntry> parse(String contents) throws IOException {
+        NetDBParser parser = new NetDBParser(new ByteArrayInputStream(contents.getBytes(StandardCharsets.ISO_8859_1)));
+        List<NetDBEntry> entries = new ArrayList<NetDBEntry>();
+        try {
+            for (NetDBEntry e : parser) {
+                entries.add(e);
+            }
+        } finally {
+            parser.close();
+        }
+
+        return entries;
+    }
+
+    @Test public void skipsCommentsAndShortLines() throws IOException {
+        List<NetDBEntry> entries = parse("# comment\n\n   \nlonely\nlonely # data\n#name 1/tcp\necho 7/tcp\n");
+        assertEquals(1, entries.size());
+        assertEquals("echo", entries.get(0).name);
+        assertEquals("7/tcp", entries.get(0).data);
+        assertTrue(entries.get(0).aliases.isEmpty());
+    }
+
+    @Test public void splitsFieldsOnAnyWhitespace() throws IOException {
+        List<NetDBEntry> entries = parse("  discard\t9/udp \t sink\u000bnull# trailing comment\r\nchargen 19/tcp ttytst source\r\n");
+        assertEquals(2, entries.size());
+        assertEquals("discard", entries.get(0).name);
+        assertEquals("9/udp", entries.get(0).data);
+        assertEquals(Arrays.asList("sink", "null"), entries.get(0).aliases);
+        assertEquals(Arrays.asList("ttytst", "source"), entries.get(1).aliases);
+    }
+
+    @Test public void lastLineDoesNotNeedNewline() throws IOException {
+        List<NetDBEntry> entries = parse("echo 7/tcp\nsystat 11/tcp users");
+        assertEquals(2, entries.size());
+        assertEquals("systat", entries.get(1).name);
+        assertEquals(Arrays.asList("users"), entries.get(1).aliases);
+    }
+
+    @Test public void handlesLinesSpanningBufferBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("service-").append(i).append('\t').append(i).append("/tcp\talias-").append(i).append(" # comment\n");
+        }
+        StringBuilder longAlias = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            longAlias.append('x');
+        }
+        sb.append("long 1/udp ").append(longAlias).append('\n');
+
+        List<NetDBEntry> entries = parse(sb.toString());
+        assertEquals(5001, entries.size());
+        for (int i = 0; i < 5000; i++) {
+            NetDBEntry e = entries.get(i);
+            assertEquals("service-" + i, e.name);
+            assertEquals(i + "/tcp", e.data);
+            assertEquals(Arrays.asList("alias-" + i), e.aliases);
+        }
+        assertEquals(longAlias.toString(), entries.get(5000).aliases.iterator().next());
+    }
+
+    @Test public void tokenizesBufferInPlace() throws IOException {
+        NetDBTokenizer t = new NetDBTokenizer(ByteBuffer.wrap("# comment\nbiff\t512/udp\tcomsat\n".getBytes(StandardCharsets.ISO_8859_1)));
+        assertTrue(t.nextLine());
+        assertEquals(3, t.fieldCount());
+        assertEquals("biff".hashCode(), t.hash(t.fieldStart(0), t.fieldEnd(0)));
+        assertTrue(t.regionMatches(t.fieldStart(2), t.fieldEnd(2), "comsat"));
+        assertFalse(t.regionMatches(t.fieldStart(2), t.fieldEnd(2), "comsa"));
+
+        int slash = t.indexOf(t.fieldStart(1), t.fieldEnd(1), (byte) '/');
+        assertEquals(512, t.parseInt(t.fieldStart(1), slash));
+        assertEquals(-1, t.parseInt(slash + 1, t.fieldEnd(1)));
+        assertEquals("udp", t.string(slash + 1, t.fieldEnd(1)));
+        assertFalse(t.nextLine());
+    }
+
+    @Test public void canParseWholeFile() throws IOException {
+        File f = folder.newFile("services");
+        OutputStream out = new FileOutputStream(f);
+        try {
+            out.write("echo 7/tcp\ndiscard 9/udp sink null\n".getBytes(StandardCharsets.ISO_8859_1));
+        } finally {
+            out.close();
+        }
+
+        NetDBParser parser = NetDBParser.open(f);
+        List<NetDBEntry> entries = new ArrayList<NetDBEntry>();
+        try {
+            for (NetDBEntry e : parser) {
+                entries.add(e);
+            }
+        } finally {
+            parser.close();
+        }
+
+        assertEquals(2, entries.size());
+        assertEquals("discard", entries.get(1).name);
+        assertEquals(Arrays.asList("sink", "null"), entries.get(1).aliases);
+    }
+
+    @Test public void readsSmallFileOntoHeap() throws IOException {
+        File f = folder.newFile("protocols");
+        OutputStream out = new FileOutputStream(f);
+        try {
+            out.write("tcp 6 TCP\n".getBytes(StandardCharsets.ISO_8859_1));
+        } finally {
+            out.close();
+        }
+
+        ByteBuffer buf = NetDBParser.readFile(f);
+        assertFalse(buf.isDirect());
+        assertTrue(buf.hasArray());
+
+        // Truncating the file leaves the copy intact
+        new FileOutputStream(f).close();
+        assertEquals(0, f.length());
+        assertEquals(10, buf.remaining());
+        assertEquals('\n', buf.get(9));
+    }
+
+    @Test public void spliteratorSplitsAtLineBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("service-").append(i).append('\t').append(i).append("/tcp alias-").append(i).append(" # comment\n");
+        }
+
+        NetDBSpliterator whole = new NetDBSpliterator(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        NetDBSpliterator prefix = whole.trySplit();
+        assertNotNull(prefix);
+        assertEquals(prefix.end(), whole.start());
+        assertEquals('\n', sb.charAt(prefix.end() - 1));
+
+        List<NetDBEntry> entries = StreamSupport.stream(
+                new NetDBSpliterator(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.ISO_8859_1))), true)
+                .collect(Collectors.toList());
+        assertEquals(20000, entries.size());
+        for (int i = 0; i < 20000; i++) {
+            NetDBEntry e = entries.get(i);
+            assertEquals("service-" + i, e.name);
+            assertEquals(i + "/tcp", e.data);
+            assertEquals(Arrays.asList("alias-" + i), e.aliases);
+        }
+    }
+
+    @Test public void smallInputIsNotSplit() {
+        NetDBSpliterator s = new NetDBSpliterator(ByteBuffer.wrap("echo 7/tcp\n".getBytes(StandardCharsets.ISO_8859_1)));
+        assertNull(s.trySplit());
+    }
+}
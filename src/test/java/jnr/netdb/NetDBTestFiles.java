@@ -0,0 +1,45 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the services, protocols and other files the tests read
+ */
+final class NetDBTestFiles {
+
+    private NetDBTestFiles() {
+    }
+
+    /**
+     * Replaces the contents of a file.
+     *
+     * @return {@code f}
+     */
+    static File write(File f, String contents) throws IOException {
+        Writer w = new FileWriter(f);
+        try {
+            w.write(contents);
+        } finally {
+            w.close();
+        }
+
+        return f;
+    }
+
+    /**
+     * Replaces the contents of a file with lines, each ending in a newline.
+     *
+     * @return {@code f}
+     */
+    static File writeLines(File f, String... lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+
+        return write(f, sb.toString());
+    }
+}
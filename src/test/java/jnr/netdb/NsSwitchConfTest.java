@@ -0,0 +1,84 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class NsSwitchConfTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public NsSwitchConfTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static NsSwitchConf parse(String... lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+
+        return NsSwitchConf.parse(new StringReader(sb.toString()));
+    }
+
+    @Test public void canParseSources() throws IOException {
+        NsSwitchConf conf = parse(
+                "# /etc/nsswitch.conf",
+                "passwd:         files systemd",
+                "hosts:          files mdns4_minimal [NOTFOUND=return] dns",
+                "",
+                "services:\tfiles sss   # sssd",
+                "protocols:      db files",
+                "services: files");
+
+        assertEquals(Arrays.asList("files", "mdns4_minimal", "dns"), conf.getSources("hosts"));
+        assertEquals(Arrays.asList("files", "sss"), conf.getSources("services"));
+        assertEquals(Arrays.asList("db", "files"), conf.getSources("protocols"));
+        assertNull(conf.getSources("networks"));
+    }
+
+    @Test public void filesOnly() throws IOException {
+        NsSwitchConf conf = parse(
+                "services: FILES [NOTFOUND=return]",
+                "protocols: files nis",
+                "ethers:");
+
+        assertTrue(conf.isFilesOnly("services"));
+        assertFalse(conf.isFilesOnly("protocols"));
+        assertFalse(conf.isFilesOnly("ethers"));
+        assertFalse(conf.isFilesOnly("rpc"));
+    }
+
+    @Test public void missingFile() throws IOException {
+        assertNull(NsSwitchConf.load(new File(folder.getRoot(), "nsswitch.conf")));
+    }
+}
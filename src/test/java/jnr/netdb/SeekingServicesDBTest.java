@@ -0,0 +1,164 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
+
+/**
+ *
+ */
+public class SeekingServicesDBTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public SeekingServicesDBTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test public void agreesWithIndexForEtcServices() {
+        File f = new File(FileServicesDB.fileName);
+        SeekingServicesDB db = new SeekingServicesDB(f);
+        ServicesDB index = new FileServicesDB(f);
+
+        for (Service s : index.getAllServices()) {
+            assertEquals(index.getServiceByName(s.getName(), s.proto).getPort(), db.getServiceByName(s.getName(), s.proto).getPort());
+            assertEquals(index.getServiceByName(s.getName(), null).proto, db.getServiceByName(s.getName(), null).proto);
+            assertEquals(index.getServiceByPort(s.getPort(), s.proto).getName(), db.getServiceByPort(s.getPort(), s.proto).getName());
+            assertEquals(index.getServiceByPort(s.getPort(), null).getName(), db.getServiceByPort(s.getPort(), null).getName());
+            for (String alias : s.getAliases()) {
+                assertEquals(index.getServiceByName(alias, s.proto).getName(), db.getServiceByName(alias, s.proto).getName());
+            }
+        }
+        assertEquals(index.getAllServices().size(), db.getAllServices().size());
+    }
+
+    @Test public void firstMatchingEntryWins() throws IOException {
+        SeekingServicesDB db = new SeekingServicesDB(writeLines(folder.newFile("services"),
+                "# comment line",
+                "first\t1000/tcp\tshared   # trailing comment",
+                "second\t1000/tcp\tshared",
+                "first\t1001/udp",
+                "  indented\t1002/sctp"));
+
+        assertEquals("first", db.getServiceByName("shared", "tcp").getName());
+        assertEquals("first", db.getServiceByPort(1000, "tcp").getName());
+        assertEquals(1001, db.getServiceByName("first", "udp").getPort());
+        assertEquals(1000, db.getServiceByName("first", null).getPort());
+        assertEquals("udp", db.getServiceByPort(1001, null).proto);
+        assertEquals("indented", db.getServiceByPort(1002, "sctp").getName());
+        assertEquals(4, db.getAllServices().size());
+    }
+
+    @Test public void returnsNullOnMiss() throws IOException {
+        SeekingServicesDB db = new SeekingServicesDB(writeLines(folder.newFile("services"),
+                "first\t1000/tcp\tshared",
+                "badport\tabc/tcp"));
+
+        assertNull(db.getServiceByName("first", "udp"));
+        assertNull(db.getServiceByName("second", null));
+        assertNull(db.getServiceByName("badport", null));
+        assertNull(db.getServiceByPort(1000, "sctp"));
+        assertNull(db.getServiceByPort(1001, null));
+        assertNull(new SeekingServicesDB(new File(folder.getRoot(), "missing")).getServiceByName("first", null));
+    }
+
+    @Test public void readsLinesLongerThanTheBuffer() throws IOException {
+        StringBuilder line = new StringBuilder("long\t1000/tcp");
+        for (int i = 0; i < 200; i++) {
+            line.append(" alias-").append(i);
+        }
+        SeekingServicesDB db = new SeekingServicesDB(writeLines(folder.newFile("services"), line.toString(), "short\t1001/tcp"));
+
+        assertEquals("long", db.getServiceByName("alias-199", "tcp").getName());
+        assertEquals(200, db.getServiceByPort(1000, null).getAliases().size());
+        assertEquals("short", db.getServiceByPort(1001, "tcp").getName());
+    }
+
+    @Test public void keepsOnlySmallTables() throws IOException {
+        String[] lines = new String[1000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "service-" + i + "\t" + i + "/tcp";
+        }
+        SeekingServicesDB db = new SeekingServicesDB(writeLines(folder.newFile("services"), lines));
+
+        assertTrue(db.tableSize() <= 4096);
+        assertEquals(999, db.getServiceByName("service-999", "tcp").getPort());
+    }
+
+    @Test public void reloadSeesChangedFile() throws IOException {
+        File f = writeLines(folder.newFile("services"), "first\t1000/tcp");
+        SeekingServicesDB db = new SeekingServicesDB(f);
+
+        writeLines(f, "# moved", "second\t1001/tcp", "first\t2000/tcp");
+        db.reload();
+        assertEquals(2000, db.getServiceByName("first", "tcp").getPort());
+        assertEquals("second", db.getServiceByPort(1001, "tcp").getName());
+    }
+
+    @Test public void seesFileRewrittenInPlaceWithoutReload() throws IOException {
+        File f = writeLines(folder.newFile("services"), "first\t1000/tcp", "second\t1001/tcp");
+        SeekingServicesDB db = new SeekingServicesDB(f);
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+
+        // Same size, so only the lines themselves show the change
+        writeLines(f, "second\t1001/tcp", "first\t1000/tcp");
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+        assertEquals("second", db.getServiceByPort(1001, "tcp").getName());
+
+        writeLines(f, "second\t1001/tcp", "first\t1000/tcp", "third\t1002/tcp");
+        assertEquals(1002, db.getServiceByName("third", null).getPort());
+        assertEquals("third", db.getServiceByPort(1002, null).getName());
+    }
+
+    @Test public void reloadKeepsTablesWhenFileIsDeleted() throws IOException {
+        File f = writeLines(folder.newFile("services"), "first\t1000/tcp");
+        SeekingServicesDB db = new SeekingServicesDB(f);
+
+        assertTrue(f.delete());
+        db.reload();
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+
+        writeLines(f);
+        db.reload();
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+    }
+
+    @Test public void recoversAfterInterruptedLookup() throws IOException {
+        SeekingServicesDB db = new SeekingServicesDB(writeLines(folder.newFile("services"), "first\t1000/tcp"));
+
+        Thread.currentThread().interrupt();
+        try {
+            db.getServiceByName("first", "tcp");
+        } catch (RuntimeException expected) {
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(1000, db.getServiceByName("first", "tcp").getPort());
+    }
+}
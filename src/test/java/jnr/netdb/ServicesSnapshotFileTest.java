@@ -0,0 +1,151 @@
+package jnr.netdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jnr.netdb.NetDBConfig.Backend;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static jnr.netdb.NetDBTestFiles.*;
+
+/**
+ *
+ */
+public class ServicesSnapshotFileTest {
+    private static final String SETTINGS = "backends=[FILE]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public ServicesSnapshotFileTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static List<Service> services() {
+        return Arrays.asList(
+                new Service("ssh", 22, "tcp", Collections.<String>emptyList()),
+                new Service("domain", 53, "udp", Arrays.asList("nameserver", "dns")),
+                new Service("domain", 53, "tcp", Collections.<String>emptyList()));
+    }
+
+    @Test public void canReadWhatWasWritten() throws IOException {
+        File source = write(folder.newFile("services"), "ssh 22/tcp\n");
+        File[] sources = { source, new File(folder.getRoot(), "missing") };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+        ServicesDB db = ServicesSnapshotFile.read(snapshot, SETTINGS, sources);
+
+        assertNotNull(db);
+        assertEquals(3, db.getAllServices().size());
+        assertEquals(22, db.getServiceByName("ssh", "tcp").getPort());
+        assertEquals("domain", db.getServiceByName("dns", "udp").getName());
+        assertEquals(Arrays.asList("nameserver", "dns"), db.getServiceByPort(53, "udp").getAliases());
+        assertEquals("udp", db.getServiceByPort(53, null).proto);
+        assertNull(db.getServiceByName("ssh", "udp"));
+    }
+
+    @Test public void ignoresSnapshotWhenSourceChanges() throws IOException {
+        File source = write(folder.newFile("services"), "ssh 22/tcp\n");
+        File[] sources = { source };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+        write(source, "ssh 22/tcp\nssh 22/udp\n");
+
+        assertNull(ServicesSnapshotFile.read(snapshot, SETTINGS, sources));
+        assertNull(ServicesSnapshotFile.read(snapshot, SETTINGS, new File[] { source, source }));
+    }
+
+    @Test public void ignoresSnapshotWhenSourceIsRewrittenInPlace() throws IOException {
+        File source = write(folder.newFile("services"), "ssh 22/tcp\n");
+        File[] sources = { source };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+        long lastModified = source.lastModified();
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+        write(source, "ssh 22/udp\n");
+        assertTrue(source.setLastModified(lastModified));
+
+        assertNull(ServicesSnapshotFile.read(snapshot, SETTINGS, sources));
+    }
+
+    @Test public void keepsSnapshotWhenSourceIsOnlyTouched() throws IOException {
+        File source = write(folder.newFile("services"), "ssh 22/tcp\n");
+        File[] sources = { source };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+        assertTrue(source.setLastModified(source.lastModified() - 60000L));
+
+        assertNotNull(ServicesSnapshotFile.read(snapshot, SETTINGS, sources));
+    }
+
+    @Test public void ignoresSnapshotMadeWithOtherSettings() throws IOException {
+        File[] sources = { write(folder.newFile("services"), "ssh 22/tcp\n") };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+
+        assertNull(ServicesSnapshotFile.read(snapshot, "backends=[NATIVE, FILE]", sources));
+        assertNull(ServicesSnapshotFile.read(snapshot, SETTINGS, new File[] { new File(folder.getRoot(), "other") }));
+    }
+
+    @Test public void recordsTheFilesTheBackendsRead() throws IOException {
+        File services = folder.newFile("services");
+        NetDBConfig fileOnly = NetDBConfig.builder().servicesBackends(Backend.FILE).servicesFile(services).build();
+        NetDBConfig nativeOnly = NetDBConfig.builder().servicesBackends(Backend.NATIVE).servicesFile(services).build();
+        NetDBConfig adaptive = NetDBConfig.builder().servicesBackends(Backend.FILE).servicesFile(services).adaptive(true).build();
+
+        assertEquals(Arrays.asList(services), Arrays.asList(ServicesSnapshotFile.getSourceFiles(fileOnly)));
+        assertEquals(Arrays.asList(new File(FileServicesDB.fileName), new File(NsSwitchConf.fileName)),
+                Arrays.asList(ServicesSnapshotFile.getSourceFiles(nativeOnly)));
+        assertFalse(ServicesSnapshotFile.getSettings(fileOnly).equals(ServicesSnapshotFile.getSettings(nativeOnly)));
+        assertFalse(ServicesSnapshotFile.getSettings(fileOnly).equals(ServicesSnapshotFile.getSettings(adaptive)));
+    }
+
+    @Test public void ignoresCorruptSnapshot() throws IOException {
+        File[] sources = { write(folder.newFile("services"), "ssh 22/tcp\n") };
+        File snapshot = new File(folder.getRoot(), "services.snapshot");
+
+        ServicesSnapshotFile.write(snapshot, services(), SETTINGS, sources);
+        RandomAccessFile raf = new RandomAccessFile(snapshot, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(ServicesSnapshotFile.read(snapshot, SETTINGS, sources));
+        assertNull(ServicesSnapshotFile.read(write(snapshot, "junk"), SETTINGS, sources));
+        assertNull(ServicesSnapshotFile.read(new File(folder.getRoot(), "missing"), SETTINGS, sources));
+    }
+}
@@ -0,0 +1,95 @@
+package jnr.netdb;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SwappableServicesDBTest {
+
+    public SwappableServicesDBTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static void awaitSwap(SwappableServicesDB db, ServicesDB initial) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (db.current() == initial && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test public void answersFromInitialUntilLoaded() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ServicesDB loaded = new ServicesIndex.Builder()
+                .add(new Service("domain", 5353, "udp", Collections.<String>emptyList()))
+                .build();
+        ServicesDB initial = IANAServicesDB.getInstance();
+
+        SwappableServicesDB db = SwappableServicesDB.swapInBackground(initial, new Callable<ServicesDB>() {
+            public ServicesDB call() throws InterruptedException {
+                release.await();
+                return loaded;
+            }
+        });
+
+        assertEquals(53, db.getServiceByName("domain", "udp").getPort());
+        assertSame(initial, db.current());
+
+        release.countDown();
+        awaitSwap(db, initial);
+
+        assertSame(loaded, db.current());
+        assertEquals(5353, db.getServiceByName("domain", "udp").getPort());
+        assertEquals(Arrays.asList(loaded.getAllServices().toArray()), Arrays.asList(db.getAllServices().toArray()));
+    }
+
+    @Test public void keepsInitialWhenLoadFails() throws Exception {
+        ServicesDB initial = IANAServicesDB.getInstance();
+        final CountDownLatch done = new CountDownLatch(2);
+
+        SwappableServicesDB failed = SwappableServicesDB.swapInBackground(initial, new Callable<ServicesDB>() {
+            public ServicesDB call() {
+                done.countDown();
+                throw new UnsatisfiedLinkError("no native library");
+            }
+        });
+        SwappableServicesDB unavailable = SwappableServicesDB.swapInBackground(initial, new Callable<ServicesDB>() {
+            public ServicesDB call() {
+                done.countDown();
+                return null;
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertSame(initial, failed.current());
+        assertSame(initial, unavailable.current());
+        assertEquals(22, failed.getServiceByName("ssh", "tcp").getPort());
+    }
+}